@@ -0,0 +1,13 @@
+#!/usr/bin/env bash
+# Runs the JMH suites with the GC/allocation profiler and writes target/jmh-result.json.
+# Pass a baseline to fail on regressions: BASELINE=baseline.json benchmarks/run.sh [JMH args, e.g. StateAssembly]
+set -euo pipefail
+cd "$(dirname "$0")"
+
+(cd .. && mvn -q -B install -DskipTests)
+mvn -q -B package
+java -jar target/benchmarks.jar -prof gc -rf json -rff target/jmh-result.json "$@"
+
+if [[ -n "${BASELINE:-}" ]]; then
+  java -cp target/benchmarks.jar com.djust.stripeconnectdemo.bench.BenchmarkGate "$BASELINE" target/jmh-result.json "${MAX_REGRESSION:-10}"
+fi
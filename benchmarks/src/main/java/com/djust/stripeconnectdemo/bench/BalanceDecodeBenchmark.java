@@ -0,0 +1,113 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.service.balance.BalanceDecoder;
+import com.djust.stripeconnectdemo.service.balance.CurrencyAmounts;
+import com.stripe.model.Balance;
+import com.stripe.net.ApiResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance decoding: former reflective loop (getMethod + invoke per element) vs {@link BalanceDecoder}.
+ * Run: java -jar target/benchmarks.jar BalanceDecode -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BalanceDecodeBenchmark {
+
+    private static final String[] CURRENCIES = {"eur", "usd", "gbp", "chf", "sek", "nok", "dkk", "pln", "czk", "huf"};
+
+    @Param({"1", "3", "10"})
+    public int currencies;
+
+    private Balance balance;
+    private String lookup;
+
+    @Setup
+    public void setUp() {
+        StringBuilder available = new StringBuilder();
+        StringBuilder pending = new StringBuilder();
+        for (int i = 0; i < currencies; i++) {
+            String sep = i == 0 ? "" : ",";
+            available.append(sep).append("{\"amount\":").append(10_000 + i).append(",\"currency\":\"").append(CURRENCIES[i])
+                    .append("\",\"source_types\":{\"card\":").append(10_000 + i).append("}}");
+            pending.append(sep).append("{\"amount\":").append(500 + i).append(",\"currency\":\"").append(CURRENCIES[i])
+                    .append("\",\"source_types\":{\"card\":").append(500 + i).append("}}");
+        }
+        String json = "{\"object\":\"balance\",\"livemode\":false,\"available\":[" + available + "],\"pending\":[" + pending + "]}";
+        balance = ApiResource.GSON.fromJson(json, Balance.class);
+        lookup = CURRENCIES[currencies - 1].toUpperCase();
+    }
+
+    @Benchmark
+    public Object reflectiveDecode() {
+        Map<String, Long> available = reflective(balance.getAvailable());
+        Map<String, Long> pending = reflective(balance.getPending());
+        return available.size() + pending.size() > 0 ? available : pending;
+    }
+
+    @Benchmark
+    public Object typedDecode() {
+        CurrencyAmounts available = BalanceDecoder.available(balance.getAvailable());
+        CurrencyAmounts pending = BalanceDecoder.pending(balance.getPending());
+        return available.size() + pending.size() > 0 ? available : pending;
+    }
+
+    /** Former transferFeesToDjust path: reflective scan for one currency. */
+    @Benchmark
+    public long reflectiveLookup() {
+        for (Object amtObj : balance.getAvailable()) {
+            if (amtObj == null) continue;
+            try {
+                var cls = amtObj.getClass();
+                Object cur = cls.getMethod("getCurrency").invoke(amtObj);
+                Object am = cls.getMethod("getAmount").invoke(amtObj);
+                if (cur instanceof String c && am instanceof Number n && lookup.equalsIgnoreCase(c)) return n.longValue();
+            } catch (Exception ignored) { }
+        }
+        return 0L;
+    }
+
+    @Benchmark
+    public long typedLookup() {
+        return BalanceDecoder.available(balance.getAvailable()).amount(lookup);
+    }
+
+    /** Copy of the loop previously inlined in HomeController, kept here as the baseline. */
+    private static Map<String, Long> reflective(List<?> funds) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        if (funds == null) return out;
+        for (Object amtObj : funds) {
+            if (amtObj == null) continue;
+            try {
+                var cls = amtObj.getClass();
+                var getCurrency = cls.getMethod("getCurrency");
+                var getAmount = cls.getMethod("getAmount");
+                Object cur = getCurrency.invoke(amtObj);
+                Object am = getAmount.invoke(amtObj);
+                if (cur instanceof String c && am instanceof Number n) {
+                    out.put(c, n.longValue());
+                }
+            } catch (Exception ignored) { }
+        }
+        return out;
+    }
+}
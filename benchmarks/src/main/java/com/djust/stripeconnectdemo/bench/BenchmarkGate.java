@@ -0,0 +1,60 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files (-rf json) and fails when a benchmark got slower, or allocates more
+ * per operation (-prof gc, gc.alloc.rate.norm), than the baseline by more than the allowed percentage.
+ * Only AverageTime/SampleTime scores (lower is better) are compared.
+ *
+ * Usage: java -cp target/benchmarks.jar com.djust.stripeconnectdemo.bench.BenchmarkGate baseline.json current.json [maxRegressionPercent]
+ */
+public class BenchmarkGate {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkGate baseline.json current.json [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Double> baseline = scores(new File(args[0]));
+        Map<String, Double> current = scores(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> e : current.entrySet()) {
+            Double before = baseline.get(e.getKey());
+            if (before == null || before <= 0) continue;
+            double change = (e.getValue() - before) / before * 100.0;
+            boolean failed = change > maxRegression;
+            if (failed) regressions++;
+            System.out.printf("%s %-90s %14.3f -> %14.3f  %+7.1f%%%n", failed ? "FAIL" : "ok  ", e.getKey(), before, e.getValue(), change);
+        }
+        if (regressions > 0) {
+            System.out.printf("%d regression(s) above %.1f%%%n", regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+
+    /** "benchmark[params] metric" -> score, for the primary metric and the normalized allocation rate. */
+    static Map<String, Double> scores(File file) throws Exception {
+        Map<String, Double> out = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String mode = run.path("mode").asText();
+            if (!mode.equals("avgt") && !mode.equals("sample")) continue;
+            String name = run.path("benchmark").asText() + run.path("params").toString();
+            out.put(name + " time", run.path("primaryMetric").path("score").asDouble());
+            JsonNode secondary = run.path("secondaryMetrics");
+            secondary.fieldNames().forEachRemaining(metric -> {
+                if (metric.endsWith(ALLOC)) out.put(name + " " + metric, secondary.path(metric).path("score").asDouble());
+            });
+        }
+        return out;
+    }
+}
@@ -0,0 +1,68 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.stripe.StripeClientOptions;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StripeClient on an in-process transport returning canned JSON, so benchmarks measure our code and the SDK's
+ * encoding/decoding, never the network. Responses are picked by the longest matching "METHOD /path" prefix.
+ */
+final class CannedStripe extends HttpClient {
+
+    private static final HttpHeaders HEADERS = HttpHeaders.of(Map.of(
+            "Content-Type", List.of("application/json"),
+            "Request-Id", List.of("req_bench")));
+
+    private final Map<String, String> responses = new LinkedHashMap<>();
+
+    CannedStripe on(String methodAndPath, String json) {
+        responses.put(methodAndPath, json);
+        return this;
+    }
+
+    StripeClient client() {
+        return new StripeClient(new LiveStripeResponseGetter(
+                new StripeClientOptions("sk_test_bench", "http://localhost", 1000, 1000), this));
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        String key = request.method().name() + " " + request.url().getPath();
+        String body = null;
+        int matched = -1;
+        for (Map.Entry<String, String> e : responses.entrySet()) {
+            if (key.startsWith(e.getKey()) && e.getKey().length() > matched) {
+                body = e.getValue();
+                matched = e.getKey().length();
+            }
+        }
+        if (body == null) throw new ApiConnectionException("No canned response for " + key);
+        return new StripeResponse(200, HEADERS, body);
+    }
+
+    static String account(String id) {
+        return """
+                {"id":"%s","object":"account","type":"express","charges_enabled":true,"payouts_enabled":false,
+                 "capabilities":{"transfers":"active"},"requirements":{"currently_due":["external_account"]}}""".formatted(id);
+    }
+
+    static final String BALANCE = """
+            {"object":"balance","livemode":false,
+             "available":[{"amount":120000,"currency":"eur"},{"amount":5000,"currency":"usd"}],
+             "pending":[{"amount":3000,"currency":"eur"}]}""";
+
+    static final String PAYMENT_INTENT = """
+            {"id":"pi_bench","object":"payment_intent","amount":2000,"currency":"eur","status":"requires_payment_method",
+             "client_secret":"pi_bench_secret_x","application_fee_amount":200,"transfer_data":{"destination":"acct_bench"}}""";
+}
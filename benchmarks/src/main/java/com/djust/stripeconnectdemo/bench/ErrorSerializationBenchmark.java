@@ -0,0 +1,69 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.error.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GlobalExceptionHandler: exception -> ApiError (+ error counter) -> JSON bytes, as written to the response.
+ * Run: java -jar target/benchmarks.jar ErrorSerialization -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorSerializationBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private ObjectMapper mapper;
+    private BusinessException insufficientFunds;
+    private BusinessException badRequest;
+    private StripeException stripeError;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        insufficientFunds = new BusinessException(ErrorCode.INSUFFICIENT_FUNDS,
+                "Insufficient platform balance in eur (available=100, requested=5000).",
+                Map.of("available_by_currency", Map.of("eur", 100L), "requested", 5000L, "currency", "eur"));
+        badRequest = new BusinessException(ErrorCode.BAD_REQUEST, "Missing currency");
+        stripeError = new InvalidRequestException("No such destination: 'acct_x'", "destination", "req_bench",
+                "resource_missing", 400, null);
+    }
+
+    @Benchmark
+    public byte[] businessWithDetails() throws Exception {
+        return mapper.writeValueAsBytes(handler.handleBusiness(insufficientFunds).getBody());
+    }
+
+    @Benchmark
+    public byte[] businessPlain() throws Exception {
+        return mapper.writeValueAsBytes(handler.handleBusiness(badRequest).getBody());
+    }
+
+    @Benchmark
+    public byte[] stripeException() throws Exception {
+        return mapper.writeValueAsBytes(handler.handleStripe(stripeError).getBody());
+    }
+}
@@ -0,0 +1,81 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.service.fee.FeeSchedule;
+import com.djust.stripeconnectdemo.service.fee.FeeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fee lookup on the /payments path when application_fee_amount is omitted, and the cost of rebuilding the table on reload.
+ * Each seller has 2 currencies x 2 amount bands; '*' rows catch unknown sellers. Lookups should allocate nothing.
+ * Run: java -jar target/benchmarks.jar FeeSchedule -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeeScheduleBenchmark {
+
+    @Param({"1000", "100000"})
+    public int schedules;
+
+    private List<FeeSchedule> rows;
+    private FeeTable table;
+    private String[] sellers;
+    private String[] unknown;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int count = schedules / 4;
+        rows = new ArrayList<>(schedules + 2);
+        sellers = new String[count];
+        for (int i = 0; i < count; i++) {
+            sellers[i] = "acct_bench" + i;
+            for (String currency : new String[] {"eur", "usd"}) {
+                rows.add(new FeeSchedule(sellers[i], currency, 0, 15_000 + i % 100, 25, 50, FeeSchedule.NO_MAX));
+                rows.add(new FeeSchedule(sellers[i], currency, 100_000, 10_000, 0, 0, 50_000));
+            }
+        }
+        rows.add(new FeeSchedule(FeeSchedule.ANY, "eur", 0, 20_000, 30, 0, FeeSchedule.NO_MAX));
+        rows.add(new FeeSchedule(FeeSchedule.ANY, FeeSchedule.ANY, 0, 25_000, 30, 0, FeeSchedule.NO_MAX));
+        table = FeeTable.of(rows);
+        unknown = new String[1024];
+        for (int i = 0; i < unknown.length; i++) unknown[i] = "acct_unknown" + i;
+    }
+
+    /** Seller with its own schedule in that currency. */
+    @Benchmark
+    public long sellerHit() {
+        String seller = sellers[next++ % sellers.length];
+        return table.fee(seller, "eur", 2000 + (next & 0xffff) * 10L);
+    }
+
+    /** Seller without a schedule: falls back to (*, currency), then (*, *). */
+    @Benchmark
+    public long wildcardFallback() {
+        String seller = unknown[next++ & 1023];
+        return table.fee(seller, (next & 1) == 0 ? "eur" : "gbp", 2000);
+    }
+
+    /** Full rebuild, as done on every reload of the file. */
+    @Benchmark
+    public FeeTable rebuild() {
+        return FeeTable.of(rows);
+    }
+}
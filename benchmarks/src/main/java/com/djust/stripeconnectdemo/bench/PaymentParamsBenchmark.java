@@ -0,0 +1,112 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.djust.stripeconnectdemo.service.fee.FeeEngine;
+import com.djust.stripeconnectdemo.service.payment.OrderIdempotency;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentCache;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentReq;
+import com.djust.stripeconnectdemo.service.payment.PaymentService;
+import com.stripe.exception.StripeException;
+import com.stripe.param.PaymentIntentCreateParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /payments in-process cost: params building, SDK form encoding, and the full PaymentService path
+ * (idempotency cache + fee schedule lookup + request encoding + canned response decoding).
+ * Run: java -jar target/benchmarks.jar PaymentParams -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentParamsBenchmark {
+
+    private PaymentService payments;
+    private FeeEngine fees;
+    private Path feeSchedule;
+    private PaymentIntentCreateParams params;
+    private long order;
+
+    @Setup
+    public void setUp() throws IOException {
+        var stripe = new CannedStripe().on("POST /v1/payment_intents", CannedStripe.PAYMENT_INTENT).client();
+        feeSchedule = Files.createTempFile("fees", ".csv");
+        Files.writeString(feeSchedule, "*,*,0,1.5,25,,\n");
+        fees = new FeeEngine(feeSchedule, "bench");
+        payments = new PaymentService(stripe, new OrderIdempotency(100_000, Duration.ofHours(24), CacheMetrics.NOOP), fees,
+                new PaymentIntentCache(stripe, 100_000, Duration.ofHours(1), Duration.ofSeconds(2), CacheMetrics.NOOP));
+        params = build(2000L, "eur", "acct_bench", 200);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fees.close();
+        Files.deleteIfExists(feeSchedule);
+    }
+
+    /** Same builder chain as PaymentService.createDestination. */
+    @Benchmark
+    public PaymentIntentCreateParams buildParams() {
+        return build(2000L, "eur", "acct_bench", 200);
+    }
+
+    /** What the SDK does with the params before form-encoding them. */
+    @Benchmark
+    public Map<String, Object> paramsToMap() {
+        return params.toMap();
+    }
+
+    @Benchmark
+    public OrderIdempotency.CreatedIntent createWithoutOrderId() throws StripeException {
+        return payments.createDestination(new PaymentIntentReq(2000L, "eur", "acct_bench", 200, null));
+    }
+
+    /** Fee omitted: computed from the fee schedule. */
+    @Benchmark
+    public OrderIdempotency.CreatedIntent createWithScheduledFee() throws StripeException {
+        return payments.createDestination(new PaymentIntentReq(2000L, "eur", "acct_bench", null, null));
+    }
+
+    /** New order each time: cache miss, Stripe call, cache insert (bounded, so eviction is exercised too). */
+    @Benchmark
+    public OrderIdempotency.CreatedIntent createNewOrder() throws StripeException {
+        return payments.createDestination(new PaymentIntentReq(2000L, "eur", "acct_bench", 200, "order-" + order++));
+    }
+
+    /** Replayed order: answered from the idempotency cache, no Stripe call. */
+    @Benchmark
+    public OrderIdempotency.CreatedIntent createReplayedOrder() throws StripeException {
+        return payments.createDestination(new PaymentIntentReq(2000L, "eur", "acct_bench", 200, "order-replayed"));
+    }
+
+    private static PaymentIntentCreateParams build(Long amount, String currency, String destination, Integer fee) {
+        PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
+                .setAmount(amount)
+                .setCurrency(currency)
+                .addPaymentMethodType("card")
+                .setTransferData(PaymentIntentCreateParams.TransferData.builder()
+                        .setDestination(destination)
+                        .build());
+        if (fee != null && fee >= 0) builder.setApplicationFeeAmount(fee.longValue());
+        return builder.build();
+    }
+}
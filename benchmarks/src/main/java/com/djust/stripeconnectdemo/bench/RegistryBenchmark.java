@@ -0,0 +1,95 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.service.registry.FileAccountRegistry;
+import com.djust.stripeconnectdemo.service.registry.InMemoryAccountRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Account registry (formerly MemoryStore) under concurrent access: dashboard readers listing and probing
+ * accounts while a writer registers/removes accounts (webhooks, POST /accounts).
+ * Run: java -jar target/benchmarks.jar Registry -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class RegistryBenchmark {
+
+    @Param({"memory", "file"})
+    public String type;
+
+    @Param({"1000"})
+    public int accounts;
+
+    private AccountRegistry registry;
+    private Path dir;
+    private long churn;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (type.equals("file")) {
+            dir = Files.createTempDirectory("registry-bench");
+            registry = new FileAccountRegistry(dir.resolve("accounts.log"), 10_000);
+        } else {
+            registry = new InMemoryAccountRegistry();
+        }
+        for (int i = 0; i < accounts; i++) registry.register("acct_bench" + i);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (registry instanceof AutoCloseable c) c.close();
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public boolean contains() {
+        return registry.contains("acct_bench" + ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<String> listAccounts() {
+        return registry.accountIds();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean registerRemove() {
+        String id = "acct_churn" + (churn++ & 63);
+        return registry.register(id) || registry.remove(id);
+    }
+}
@@ -0,0 +1,102 @@
+package com.djust.stripeconnectdemo.bench;
+
+import com.djust.stripeconnectdemo.service.FanOutExecutor;
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.djust.stripeconnectdemo.service.registry.InMemoryAccountRegistry;
+import com.djust.stripeconnectdemo.service.state.DashboardState;
+import com.djust.stripeconnectdemo.service.state.StateService;
+import com.djust.stripeconnectdemo.web.StateJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.stripe.model.Account;
+import com.stripe.net.ApiResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/state in-process cost with every account status and the balance cached (the steady-state poll):
+ * record assembly in StateService, then JSON: plain Jackson vs StateJsonWriter (per-account bytes reused).
+ * Run: java -jar target/benchmarks.jar StateAssembly -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateAssemblyBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int accounts;
+
+    private FanOutExecutor fanOut;
+    private StateService state;
+    private ObjectMapper mapper;
+    private StateJsonWriter writer;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws Exception {
+        var stripe = new CannedStripe()
+                .on("GET /v1/balance", CannedStripe.BALANCE)
+                .on("GET /v1/accounts/", CannedStripe.account("acct_unknown"))
+                .client();
+        var registry = new InMemoryAccountRegistry();
+        var statusCache = new AccountStatusCache(Duration.ofDays(1), CacheMetrics.NOOP);
+        for (int i = 0; i < accounts; i++) {
+            String id = "acct_bench" + i;
+            registry.register(id);
+            statusCache.update(ApiResource.GSON.fromJson(CannedStripe.account(id), Account.class));
+        }
+        registry.setDjustAccountId("acct_djust");
+        statusCache.update(ApiResource.GSON.fromJson(CannedStripe.account("acct_djust"), Account.class));
+
+        var balance = new BalanceService(stripe, Duration.ofDays(1), CacheMetrics.NOOP);
+        balance.get();
+        fanOut = new FanOutExecutor(16, Duration.ofSeconds(5), Duration.ofSeconds(8));
+        state = new StateService(stripe, "http://localhost:4243", registry, fanOut, balance, statusCache);
+        mapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        writer = new StateJsonWriter(mapper);
+        out = new ByteArrayOutputStream(256 + accounts * 160);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fanOut.close();
+    }
+
+    @Benchmark
+    public DashboardState snapshot() {
+        return state.snapshot();
+    }
+
+    @Benchmark
+    public byte[] snapshotToJson() throws Exception {
+        return mapper.writeValueAsBytes(state.snapshot());
+    }
+
+    /** What GET /api/state does: unchanged accounts are copied from cached bytes into the (reused) output. */
+    @Benchmark
+    public int snapshotToCachedJson() throws Exception {
+        out.reset();
+        writer.write("bench", state.snapshot(), out);
+        return out.size();
+    }
+}
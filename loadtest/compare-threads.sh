@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Throughput of the web tier on platform vs virtual threads, against the local fake Stripe API.
+# Usage: loadtest/compare-threads.sh [path] [concurrency] [durationSeconds] [stubLatencyMs]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+PATH_UNDER_TEST=${1:-/payments/platform}
+CONCURRENCY=${2:-400}
+DURATION=${3:-30}
+LATENCY=${4:-200}
+STUB_PORT=12111
+APP_PORT=4243
+
+mvn -q -B package -DskipTests
+mvn -q -B -f loadtest/pom.xml package
+APP_JAR=$(ls target/stripe-connect-demo-spring-*-exec.jar)
+CP=loadtest/target/classes
+
+java -cp "$CP" com.djust.stripeconnectdemo.loadtest.FakeStripeServer --port=$STUB_PORT --latencyMs=$LATENCY &
+STUB_PID=$!
+APP_PID=
+trap 'kill $STUB_PID ${APP_PID:-} 2>/dev/null || true' EXIT
+
+for VIRTUAL in false true; do
+  # Client-side Stripe pacing is lifted so only the web tier limits throughput
+  java -jar "$APP_JAR" \
+    --server.port=$APP_PORT \
+    --spring.threads.virtual.enabled=$VIRTUAL \
+    --stripe.secretKey=sk_test_loadtest \
+    --stripe.apiBase=http://127.0.0.1:$STUB_PORT \
+    --stripe.sweep.enabled=false \
+    --stripe.rateLimit.ratePerSecond=1000000 \
+    --stripe.rateLimit.burst=1000000 \
+    --stripe.fanout.maxConcurrency=10000 > "target/loadtest-app-virtual-$VIRTUAL.log" 2>&1 &
+  APP_PID=$!
+  until curl -sf "http://localhost:$APP_PORT/actuator/health" > /dev/null; do sleep 0.5; done
+
+  echo "== spring.threads.virtual.enabled=$VIRTUAL (stub latency ${LATENCY} ms, ${CONCURRENCY} clients)"
+  java -cp "$CP" com.djust.stripeconnectdemo.loadtest.LoadGenerator "http://localhost:$APP_PORT" "$PATH_UNDER_TEST" "$CONCURRENCY" "$DURATION"
+
+  kill $APP_PID && wait $APP_PID 2>/dev/null || true
+  APP_PID=
+done
@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# Load scenarios (/payments, /api/state, /transfers/djust) against the app backed by the local fake Stripe API.
+# Usage: loadtest/run-scenarios.sh [latencyMs] [jitterMs] [extra LoadScenarios options, e.g. --concurrency=200]
+# VIRTUAL_THREADS=true runs the app in virtual-thread mode.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+LATENCY=${1:-150}
+JITTER=${2:-100}
+shift $(( $# > 2 ? 2 : $# ))
+FAKE_PORT=12111
+APP_PORT=4243
+
+mvn -q -B package -DskipTests
+mvn -q -B -f loadtest/pom.xml package
+APP_JAR=$(ls target/stripe-connect-demo-spring-*-exec.jar)
+CP=loadtest/target/classes
+
+java -cp "$CP" com.djust.stripeconnectdemo.loadtest.FakeStripeServer --port=$FAKE_PORT --latencyMs=$LATENCY --jitterMs=$JITTER &
+FAKE_PID=$!
+java -jar "$APP_JAR" \
+  --server.port=$APP_PORT \
+  --spring.threads.virtual.enabled=${VIRTUAL_THREADS:-false} \
+  --stripe.secretKey=sk_test_loadtest \
+  --stripe.apiBase=http://127.0.0.1:$FAKE_PORT \
+  --stripe.sweep.enabled=false > target/loadtest-app.log 2>&1 &
+APP_PID=$!
+trap 'kill $FAKE_PID $APP_PID 2>/dev/null || true' EXIT
+until curl -sf "http://localhost:$APP_PORT/actuator/health" > /dev/null; do sleep 0.5; done
+
+java -cp "$CP" com.djust.stripeconnectdemo.loadtest.LoadScenarios \
+  --app=http://localhost:$APP_PORT --fake=http://127.0.0.1:$FAKE_PORT "$@"
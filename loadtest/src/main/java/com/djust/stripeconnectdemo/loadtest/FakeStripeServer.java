@@ -0,0 +1,343 @@
+package com.djust.stripeconnectdemo.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Local, in-memory stand-in for api.stripe.com, for load tests.
+ * Point the app at it with stripe.apiBase=http://127.0.0.1:12111 (any sk_test_ key is accepted).
+ * - POST /v1/accounts, GET /v1/accounts/{id}: accounts are created fully onboarded (transfers active)
+ * - GET  /v1/accounts: newest first, limit / starting_after / created[gte]
+ * - POST /v1/account_links
+ * - GET  /v1/balance: one available amount per currency, debited by transfers
+ * - POST /v1/payment_intents, GET /v1/payment_intents/{id}
+ * - POST /v1/transfers: balance_insufficient when the platform balance is short
+ * Faults are injected per request: latency (+ uniform jitter), HTTP 500 api_error and HTTP 429 rate_limit.
+ * They can be changed while running: POST /_fake/config?latencyMs=..&jitterMs=..&errorRate=..&throttleRate=..
+ * GET /_fake/stats returns request counters.
+ *
+ * Usage: java -cp loadtest/target/classes com.djust.stripeconnectdemo.loadtest.FakeStripeServer
+ *            [--port=12111] [--latencyMs=200] [--jitterMs=0] [--errorRate=0] [--throttleRate=0] [--balance=1000000000000]
+ */
+public class FakeStripeServer implements AutoCloseable {
+
+    /** Injected behaviour; fields are read on every request so they can be changed at runtime. */
+    public static final class Faults {
+        volatile long latencyMs;
+        volatile long jitterMs;
+        volatile double errorRate;
+        volatile double throttleRate;
+
+        public Faults latency(Duration latency, Duration jitter) {
+            this.latencyMs = latency.toMillis();
+            this.jitterMs = jitter.toMillis();
+            return this;
+        }
+
+        public Faults errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Faults throttleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "latency=%dms jitter=%dms errorRate=%.3f throttleRate=%.3f".formatted(latencyMs, jitterMs, errorRate, throttleRate);
+        }
+    }
+
+    private record Account(String id, long seq, long created) {}
+
+    private record PaymentIntent(String id, long amount, String currency, String destination, Long applicationFee) {}
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Faults faults;
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedThrottles = new AtomicLong();
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<String, PaymentIntent> paymentIntents = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> available = new ConcurrentHashMap<>();
+    private final long initialBalance;
+
+    public FakeStripeServer(int port, Faults faults, long initialBalance) throws IOException {
+        this.faults = faults;
+        this.initialBalance = initialBalance;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 4096);
+        server.createContext("/v1/", this::handle);
+        server.createContext("/_fake/", this::admin);
+        // One virtual thread per request: the fake itself must never be the bottleneck
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public Faults faults() {
+        return faults;
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            requests.incrementAndGet();
+            String method = ex.getRequestMethod();
+            String path = ex.getRequestURI().getPath();
+            Map<String, String> form = form(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            pause();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < faults.throttleRate) {
+                injectedThrottles.incrementAndGet();
+                respond(ex, 429, error("invalid_request_error", "rate_limit", "Request rate limit exceeded (injected)"));
+                return;
+            }
+            if (random.nextDouble() < faults.errorRate) {
+                injectedErrors.incrementAndGet();
+                respond(ex, 500, error("api_error", null, "Internal error (injected)"));
+                return;
+            }
+            route(ex, method, path, form);
+        }
+    }
+
+    private void route(HttpExchange ex, String method, String path, Map<String, String> form) throws IOException {
+        if (method.equals("GET") && path.equals("/v1/balance")) {
+            respond(ex, 200, balance());
+        } else if (method.equals("POST") && path.equals("/v1/accounts")) {
+            long seq = ids.incrementAndGet();
+            Account a = new Account("acct_fake" + seq, seq, System.currentTimeMillis() / 1000);
+            accounts.put(a.id(), a);
+            respond(ex, 200, account(a));
+        } else if (method.equals("GET") && path.equals("/v1/accounts")) {
+            String query = ex.getRequestURI().getRawQuery();
+            respond(ex, 200, accountList(form(query == null ? "" : query)));
+        } else if (method.equals("GET") && path.startsWith("/v1/accounts/")) {
+            Account a = accounts.get(path.substring("/v1/accounts/".length()));
+            if (a == null) respond(ex, 404, missing("account", path));
+            else respond(ex, 200, account(a));
+        } else if (method.equals("POST") && path.equals("/v1/account_links")) {
+            if (!accounts.containsKey(form.getOrDefault("account", ""))) {
+                respond(ex, 404, missing("account", form.get("account")));
+                return;
+            }
+            respond(ex, 200, """
+                    {"object":"account_link","url":"%s","expires_at":%d}"""
+                    .formatted(form.getOrDefault("return_url", "http://localhost/"), System.currentTimeMillis() / 1000 + 300));
+        } else if (method.equals("POST") && path.equals("/v1/payment_intents")) {
+            String destination = form.get("transfer_data[destination]");
+            if (destination != null && !accounts.containsKey(destination)) {
+                respond(ex, 400, error("invalid_request_error", "resource_missing", "No such destination: '" + destination + "'"));
+                return;
+            }
+            String fee = form.get("application_fee_amount");
+            PaymentIntent pi = new PaymentIntent("pi_fake" + ids.incrementAndGet(), parseLong(form.get("amount")),
+                    form.getOrDefault("currency", "eur"), destination, fee == null ? null : parseLong(fee));
+            paymentIntents.put(pi.id(), pi);
+            respond(ex, 200, paymentIntent(pi));
+        } else if (method.equals("GET") && path.startsWith("/v1/payment_intents/")) {
+            PaymentIntent pi = paymentIntents.get(path.substring("/v1/payment_intents/".length()));
+            if (pi == null) respond(ex, 404, missing("payment_intent", path));
+            else respond(ex, 200, paymentIntent(pi));
+        } else if (method.equals("POST") && path.equals("/v1/transfers")) {
+            String destination = form.getOrDefault("destination", "");
+            if (!accounts.containsKey(destination)) {
+                respond(ex, 400, error("invalid_request_error", "resource_missing", "No such destination: '" + destination + "'"));
+                return;
+            }
+            long amount = parseLong(form.get("amount"));
+            String currency = form.getOrDefault("currency", "eur");
+            AtomicLong funds = available.computeIfAbsent(currency, c -> new AtomicLong(initialBalance));
+            if (funds.getAndAdd(-amount) < amount) {
+                funds.addAndGet(amount);
+                respond(ex, 400, error("invalid_request_error", "balance_insufficient", "Insufficient available funds"));
+                return;
+            }
+            respond(ex, 200, """
+                    {"id":"tr_fake%d","object":"transfer","amount":%d,"currency":"%s","destination":"%s"}"""
+                    .formatted(ids.incrementAndGet(), amount, currency, destination));
+        } else {
+            respond(ex, 404, error("invalid_request_error", null, "Unrecognized request URL (" + method + " " + path + ")"));
+        }
+    }
+
+    private void admin(HttpExchange ex) throws IOException {
+        try (ex) {
+            String path = ex.getRequestURI().getPath();
+            if (path.equals("/_fake/config") && ex.getRequestMethod().equals("POST")) {
+                Map<String, String> q = form(ex.getRequestURI().getRawQuery() == null ? "" : ex.getRequestURI().getRawQuery());
+                if (q.containsKey("latencyMs")) faults.latencyMs = Long.parseLong(q.get("latencyMs"));
+                if (q.containsKey("jitterMs")) faults.jitterMs = Long.parseLong(q.get("jitterMs"));
+                if (q.containsKey("errorRate")) faults.errorRate = Double.parseDouble(q.get("errorRate"));
+                if (q.containsKey("throttleRate")) faults.throttleRate = Double.parseDouble(q.get("throttleRate"));
+            } else if (!path.equals("/_fake/stats")) {
+                respond(ex, 404, "{}");
+                return;
+            }
+            respond(ex, 200, """
+                    {"requests":%d,"injected_errors":%d,"injected_throttles":%d,"accounts":%d,"payment_intents":%d,"faults":"%s"}"""
+                    .formatted(requests.get(), injectedErrors.get(), injectedThrottles.get(), accounts.size(), paymentIntents.size(), faults));
+        }
+    }
+
+    private String balance() {
+        available.computeIfAbsent("eur", c -> new AtomicLong(initialBalance));
+        StringBuilder availableJson = new StringBuilder();
+        StringBuilder pendingJson = new StringBuilder();
+        available.forEach((currency, amount) -> {
+            if (!availableJson.isEmpty()) {
+                availableJson.append(',');
+                pendingJson.append(',');
+            }
+            availableJson.append("{\"amount\":").append(amount.get()).append(",\"currency\":\"").append(currency).append("\"}");
+            pendingJson.append("{\"amount\":0,\"currency\":\"").append(currency).append("\"}");
+        });
+        return "{\"object\":\"balance\",\"livemode\":false,\"available\":[" + availableJson + "],\"pending\":[" + pendingJson + "]}";
+    }
+
+    private String accountList(Map<String, String> query) {
+        int limit = Integer.parseInt(query.getOrDefault("limit", "10"));
+        long createdGte = Long.parseLong(query.getOrDefault("created[gte]", "0"));
+        Account after = query.containsKey("starting_after") ? accounts.get(query.get("starting_after")) : null;
+        List<Account> page = accounts.values().stream()
+                .filter(a -> a.created() >= createdGte && (after == null || a.seq() < after.seq()))
+                .sorted(Comparator.comparingLong(Account::seq).reversed())
+                .limit(limit + 1L)
+                .toList();
+        boolean hasMore = page.size() > limit;
+        String data = page.stream().limit(limit).map(FakeStripeServer::account).collect(Collectors.joining(","));
+        return """
+                {"object":"list","url":"/v1/accounts","has_more":%s,"data":[%s]}""".formatted(hasMore, data);
+    }
+
+    private static String account(Account a) {
+        return """
+                {"id":"%s","object":"account","type":"express","created":%d,"charges_enabled":true,"payouts_enabled":true,
+                 "capabilities":{"transfers":"active","card_payments":"active"},
+                 "requirements":{"currently_due":[]}}""".formatted(a.id(), a.created());
+    }
+
+    private static String paymentIntent(PaymentIntent pi) {
+        return """
+                {"id":"%s","object":"payment_intent","amount":%d,"currency":"%s","status":"requires_payment_method",
+                 "client_secret":"%s_secret_fake","application_fee_amount":%s,"transfer_data":%s}"""
+                .formatted(pi.id(), pi.amount(), pi.currency(), pi.id(),
+                        pi.applicationFee() == null ? "null" : pi.applicationFee().toString(),
+                        pi.destination() == null ? "null" : "{\"destination\":\"" + pi.destination() + "\"}");
+    }
+
+    private static String error(String type, String code, String message) {
+        return """
+                {"error":{"type":"%s","code":%s,"message":"%s"}}"""
+                .formatted(type, code == null ? "null" : "\"" + code + "\"", message.replace("\"", "'"));
+    }
+
+    private static String missing(String kind, String id) {
+        return error("invalid_request_error", "resource_missing", "No such " + kind + ": '" + id + "'");
+    }
+
+    private void pause() {
+        long millis = faults.latencyMs;
+        long jitter = faults.jitterMs;
+        if (jitter > 0) millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.getResponseHeaders().set("Request-Id", "req_fake");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static Map<String, String> form(String body) {
+        Map<String, String> out = new HashMap<>();
+        if (body.isEmpty()) return out;
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    /** {@code --key=value} arguments. */
+    static Map<String, String> options(String[] args) {
+        Map<String, String> out = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq > 2) out.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = options(args);
+        Faults faults = new Faults()
+                .latency(Duration.ofMillis(Long.parseLong(opts.getOrDefault("latencyMs", "200"))),
+                        Duration.ofMillis(Long.parseLong(opts.getOrDefault("jitterMs", "0"))))
+                .errorRate(Double.parseDouble(opts.getOrDefault("errorRate", "0")))
+                .throttleRate(Double.parseDouble(opts.getOrDefault("throttleRate", "0")));
+        FakeStripeServer fake = new FakeStripeServer(Integer.parseInt(opts.getOrDefault("port", "12111")), faults,
+                Long.parseLong(opts.getOrDefault("balance", "1000000000000")));
+        fake.start();
+        System.out.printf("Fake Stripe API on http://127.0.0.1:%d (%s)%n", fake.port(), faults);
+        Runtime.getRuntime().addShutdownHook(new Thread(fake::close));
+        Thread.currentThread().join();
+    }
+}
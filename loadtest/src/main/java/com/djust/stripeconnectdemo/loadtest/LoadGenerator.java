@@ -0,0 +1,153 @@
+package com.djust.stripeconnectdemo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Closed-loop HTTP load: {@code concurrency} virtual-thread workers send requests back to back for {@code duration},
+ * after a warm-up, and report throughput, error count and latency percentiles.
+ *
+ * Usage: java -cp loadtest/target/classes com.djust.stripeconnectdemo.loadtest.LoadGenerator
+ *            [baseUrl] [path] [concurrency] [durationSeconds]
+ * POST paths get a PaymentIntent body with a unique order_id per request.
+ */
+public class LoadGenerator {
+
+    /** Builds the n-th request of a run. */
+    public interface RequestFactory extends LongFunction<HttpRequest> {}
+
+    public record Result(String name, long requests, long errors, Duration elapsed, long[] sortedLatencyNanos) {
+
+        public double throughput() {
+            return requests / (elapsed.toNanos() / 1e9);
+        }
+
+        public double percentileMillis(double p) {
+            if (sortedLatencyNanos.length == 0) return Double.NaN;
+            int i = (int) Math.ceil(p / 100.0 * sortedLatencyNanos.length) - 1;
+            return sortedLatencyNanos[Math.max(0, Math.min(i, sortedLatencyNanos.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %8d req %6d err %9.1f req/s   p50 %8.1f ms   p99 %8.1f ms   max %8.1f ms",
+                    name, requests, errors, throughput(), percentileMillis(50), percentileMillis(99), percentileMillis(100));
+        }
+    }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public Result run(String name, RequestFactory requests, int concurrency, Duration warmUp, Duration duration) throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        if (!warmUp.isZero()) drive(requests, sequence, concurrency, warmUp);
+        long start = System.nanoTime();
+        List<Worker> workers = drive(requests, sequence, concurrency, duration);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        long total = 0;
+        long errors = 0;
+        for (Worker w : workers) {
+            total += w.count;
+            errors += w.errors;
+        }
+        long[] all = new long[(int) total];
+        int offset = 0;
+        for (Worker w : workers) {
+            System.arraycopy(w.latencies, 0, all, offset, w.count);
+            offset += w.count;
+        }
+        Arrays.sort(all);
+        return new Result(name, total, errors, elapsed, all);
+    }
+
+    private List<Worker> drive(RequestFactory requests, AtomicLong sequence, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Worker> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Worker w = new Worker(requests, sequence, deadline);
+                workers.add(w);
+                futures.add(executor.submit(w));
+            }
+            for (Future<?> f : futures) f.get();
+        }
+        return workers;
+    }
+
+    private final class Worker implements Runnable {
+        final RequestFactory requests;
+        final AtomicLong sequence;
+        final long deadline;
+        long[] latencies = new long[1024];
+        int count;
+        long errors;
+
+        Worker(RequestFactory requests, AtomicLong sequence, long deadline) {
+            this.requests = requests;
+            this.sequence = sequence;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = requests.apply(sequence.incrementAndGet());
+                long t0 = System.nanoTime();
+                try {
+                    HttpResponse<Void> res = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (res.statusCode() >= 400) errors++;
+                } catch (Exception e) {
+                    errors++;
+                }
+                if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                latencies[count++] = System.nanoTime() - t0;
+            }
+        }
+    }
+
+    /** GET for any path; POST for payment paths, with a fresh order_id so every request creates a PaymentIntent. */
+    public static RequestFactory endpoint(String baseUrl, String path) {
+        if (!path.startsWith("/payments")) return get(baseUrl + path);
+        return postJson(baseUrl + path,
+                n -> "{\"amount\":1000,\"currency\":\"eur\",\"order_id\":\"load-" + ProcessHandle.current().pid() + "-" + n + "\"}");
+    }
+
+    public static RequestFactory get(String url) {
+        URI uri = URI.create(url);
+        return n -> HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    public static RequestFactory postJson(String url, LongFunction<String> body) {
+        URI uri = URI.create(url);
+        return n -> HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.apply(n)))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:4243";
+        String path = args.length > 1 ? args[1] : "/payments/platform";
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+        Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30);
+        Result r = new LoadGenerator().run(path, endpoint(baseUrl, path), concurrency, Duration.ofSeconds(5), duration);
+        System.out.println(r);
+    }
+}
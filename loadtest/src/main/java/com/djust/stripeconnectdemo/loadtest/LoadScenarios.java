@@ -0,0 +1,171 @@
+package com.djust.stripeconnectdemo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load scenarios against a running app whose stripe.apiBase points at a FakeStripeServer.
+ * - payments: POST /payments (destination charge, unique order_id, connected accounts in rotation)
+ * - state: GET /api/state (all registered accounts + Djust + balance)
+ * - transfers: POST /transfers/djust (fresh balance read + transfer)
+ * Each scenario runs once on a clean fake, then again with injected 5xx/429 faults.
+ * With --outage=true each one also runs with every Stripe call failing (500): once the app's circuits are open,
+ * reads answer from last known data (stale) and writes fail fast with 503, both far below the Stripe timeouts.
+ * Before that, the paymentIntents circuit is checked through a full cycle (closed -> open -> half-open -> closed);
+ * the run fails if a transition does not happen.
+ * Reports requests, errors, throughput and p50/p99 per run.
+ *
+ * Usage: java -cp loadtest/target/classes com.djust.stripeconnectdemo.loadtest.LoadScenarios
+ *            [--app=http://localhost:4243] [--fake=http://127.0.0.1:12111] [--concurrency=100] [--durationSeconds=30]
+ *            [--warmUpSeconds=5] [--accounts=20] [--scenarios=payments,state,transfers]
+ *            [--faultErrorRate=0.01] [--faultThrottleRate=0.05] [--outage=false]
+ */
+public class LoadScenarios {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern PAYMENT_INTENTS_CIRCUIT = Pattern.compile("\"family\":\"paymentIntents\",\"state\":\"(\\w+)\"");
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String app;
+    private final String fake;
+
+    LoadScenarios(String app, String fake) {
+        this.app = app;
+        this.fake = fake;
+    }
+
+    /** Registers {@code count} connected accounts and the Djust account in the app (hence in the fake). */
+    List<String> seed(int count) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) ids.add(id(post(app + "/accounts", "")));
+        post(app + "/accounts/djust", "");
+        return ids;
+    }
+
+    LoadGenerator.RequestFactory scenario(String name, List<String> accounts) {
+        long pid = ProcessHandle.current().pid();
+        return switch (name) {
+            case "payments" -> LoadGenerator.postJson(app + "/payments", n -> """
+                    {"amount":2000,"currency":"eur","application_fee_amount":200,"connected_account_id":"%s","order_id":"load-%d-%d"}"""
+                    .formatted(accounts.get((int) (n % accounts.size())), pid, n));
+            case "state" -> LoadGenerator.get(app + "/api/state");
+            case "transfers" -> LoadGenerator.postJson(app + "/transfers/djust", n -> """
+                    {"amount":100,"currency":"eur","description":"load test %d"}""".formatted(n));
+            default -> throw new IllegalArgumentException("Unknown scenario: " + name);
+        };
+    }
+
+    void faults(double errorRate, double throttleRate) throws Exception {
+        post(fake + "/_fake/config?errorRate=" + errorRate + "&throttleRate=" + throttleRate, "");
+    }
+
+    /**
+     * Drives the paymentIntents circuit through a full cycle with GET /payments/{id} on unknown ids (one Stripe
+     * retrieve each, never cached): fake down until the circuit opens, one call refused with 503 + Retry-After,
+     * fake back up, then probes until it closes again.
+     */
+    void checkCircuit(Duration timeout) throws Exception {
+        long started = System.nanoTime();
+        faults(1, 0);
+        int calls = 0;
+        while (!circuitState().equals("OPEN")) {
+            getPaymentIntent(calls++);
+            if (System.nanoTime() - started > timeout.toNanos()) throw new IllegalStateException("circuit did not open after " + calls + " calls");
+        }
+        HttpResponse<String> refused = getPaymentIntent(calls);
+        String retryAfter = refused.headers().firstValue("Retry-After").orElse(null);
+        if (refused.statusCode() != 503 || retryAfter == null) {
+            throw new IllegalStateException("open circuit answered " + refused.statusCode() + " (Retry-After " + retryAfter + "), expected 503");
+        }
+        faults(0, 0);
+        long opened = System.nanoTime();
+        while (!circuitState().equals("HALF_OPEN")) {
+            if (System.nanoTime() - opened > timeout.toNanos()) throw new IllegalStateException("circuit did not half-open");
+            Thread.sleep(250);
+        }
+        long halfOpenAfter = Duration.ofNanos(System.nanoTime() - opened).toSeconds();
+        int probes = 0;
+        while (!circuitState().equals("CLOSED")) {
+            getPaymentIntent(calls + ++probes);
+            if (probes > 100) throw new IllegalStateException("circuit did not close after " + probes + " probes");
+        }
+        System.out.printf("circuit paymentIntents: CLOSED -> OPEN after %d calls -> 503 (Retry-After: %s) -> HALF_OPEN after %ds -> CLOSED after %d probes%n",
+                calls, retryAfter, halfOpenAfter, probes);
+    }
+
+    private String circuitState() throws Exception {
+        String body = http.send(HttpRequest.newBuilder(URI.create(app + "/stripe/circuits")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher m = PAYMENT_INTENTS_CIRCUIT.matcher(body);
+        return m.find() ? m.group(1) : "CLOSED"; // no paymentIntents call yet
+    }
+
+    private HttpResponse<String> getPaymentIntent(int n) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(app + "/payments/pi_circuit_" + ProcessHandle.current().pid() + "_" + n)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    String stats() throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(fake + "/_fake/stats")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String post(String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> res = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (res.statusCode() >= 400) throw new IllegalStateException("POST " + url + " -> " + res.statusCode() + " " + res.body());
+        return res.body();
+    }
+
+    private static String id(String json) {
+        Matcher m = ID.matcher(json);
+        if (!m.find()) throw new IllegalStateException("No id in " + json);
+        return m.group(1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = FakeStripeServer.options(args);
+        LoadScenarios scenarios = new LoadScenarios(
+                opts.getOrDefault("app", "http://localhost:4243"),
+                opts.getOrDefault("fake", "http://127.0.0.1:12111"));
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "100"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("durationSeconds", "30")));
+        Duration warmUp = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("warmUpSeconds", "5")));
+        double errorRate = Double.parseDouble(opts.getOrDefault("faultErrorRate", "0.01"));
+        double throttleRate = Double.parseDouble(opts.getOrDefault("faultThrottleRate", "0.05"));
+        List<String> names = List.of(opts.getOrDefault("scenarios", "payments,state,transfers").split(","));
+        boolean outage = Boolean.parseBoolean(opts.getOrDefault("outage", "false"));
+
+        List<String> accounts = scenarios.seed(Integer.parseInt(opts.getOrDefault("accounts", "20")));
+        if (outage) scenarios.checkCircuit(Duration.ofMinutes(2));
+        LoadGenerator generator = new LoadGenerator();
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        for (String name : names) {
+            scenarios.faults(0, 0);
+            results.add(generator.run(name, scenarios.scenario(name, accounts), concurrency, warmUp, duration));
+            scenarios.faults(errorRate, throttleRate);
+            results.add(generator.run(name + " (faults)", scenarios.scenario(name, accounts), concurrency, warmUp, duration));
+            if (outage) {
+                scenarios.faults(1, 0);
+                results.add(generator.run(name + " (outage)", scenarios.scenario(name, accounts), concurrency, warmUp, duration));
+            }
+        }
+        scenarios.faults(0, 0);
+
+        System.out.printf("%n%d clients, %ds per run, faults: errorRate=%.3f throttleRate=%.3f%n",
+                concurrency, duration.toSeconds(), errorRate, throttleRate);
+        results.forEach(System.out::println);
+        System.out.println("fake: " + scenarios.stats());
+    }
+}
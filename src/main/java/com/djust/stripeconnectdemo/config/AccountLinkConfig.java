@@ -0,0 +1,30 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.account.AccountLinkService;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.stripe.StripeClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.account-links")
+public class AccountLinkConfig {
+
+    /** Links remembered per tenant (one per account and link type). */
+    private int maxEntries = 10_000;
+    /** How long a created link is handed out again; links are single-use, so keep it to double-click scale. */
+    private Duration reuseWindow = Duration.ofSeconds(5);
+    /** A cached link stops being handed out this long before Stripe expires it. */
+    private Duration expiryMargin = Duration.ofSeconds(30);
+
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    public void setReuseWindow(Duration reuseWindow) { this.reuseWindow = reuseWindow; }
+    public void setExpiryMargin(Duration expiryMargin) { this.expiryMargin = expiryMargin; }
+
+    public AccountLinkService accountLinkService(String tenant, StripeClient stripeClient, String rootUrl, MeterRegistry meterRegistry) {
+        return new AccountLinkService(stripeClient, rootUrl, maxEntries, reuseWindow, expiryMargin, CacheMetrics.of(meterRegistry, "account-link", tenant));
+    }
+}
@@ -0,0 +1,23 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.account-status")
+public class AccountStatusConfig {
+
+    /** How long a webhook-fed snapshot is trusted before falling back to a live Stripe read. */
+    private Duration maxAge = Duration.ofMinutes(15);
+
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+
+    public AccountStatusCache accountStatusCache(String tenant, MeterRegistry meterRegistry) {
+        return new AccountStatusCache(maxAge, CacheMetrics.of(meterRegistry, "account-status", tenant));
+    }
+}
@@ -0,0 +1,57 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.account.AccountSync;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.service.registry.FileAccountRegistry;
+import com.stripe.StripeClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.account-sync")
+public class AccountSyncConfig {
+
+    /** Sync existing connected accounts from Stripe right after startup (full the first time, then incremental). */
+    private boolean onStartup = true;
+    /** Incremental sync period; 0 = only at startup and on POST /accounts/sync. */
+    private Duration interval = Duration.ofMinutes(15);
+    /** Pages fetched ahead of the one being registered. */
+    private int prefetchPages = 2;
+    /** Directory of the sync cursors (account-sync-<tenant>.cursor), used when the registry is durable. */
+    private String cursorDir = "data";
+
+    public void setOnStartup(boolean onStartup) { this.onStartup = onStartup; }
+    public void setInterval(Duration interval) { this.interval = interval; }
+    public void setPrefetchPages(int prefetchPages) { this.prefetchPages = prefetchPages; }
+    public void setCursorDir(String cursorDir) { this.cursorDir = cursorDir; }
+
+    /** Sync of one tenant, started in the background; closed with the tenant. */
+    public AccountSync accountSync(String tenant, StripeClient stripeClient, AccountRegistry accountRegistry,
+                                   AccountStatusCache accountStatusCache, MeterRegistry meterRegistry) throws IOException {
+        // An in-memory registry starts empty: a remembered cursor would skip every older account
+        Path cursorFile = accountRegistry instanceof FileAccountRegistry ? Path.of(cursorDir, "account-sync-" + tenant + ".cursor") : null;
+        AccountSync sync = new AccountSync(stripeClient, accountRegistry, accountStatusCache, cursorFile, prefetchPages, tenant);
+        Gauge.builder("app.account_sync.running", sync, s -> s.running() ? 1 : 0)
+                .description("1 while a connected account sync is in progress")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        Gauge.builder("app.account_sync.accounts", sync, s -> s.progress().accounts())
+                .description("Accounts read from Stripe by the current or last sync")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        FunctionCounter.builder("app.account_sync.added", sync, AccountSync::totalAdded)
+                .description("Connected accounts added to the registry by syncs")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        sync.start(onStartup, interval);
+        return sync;
+    }
+}
@@ -0,0 +1,50 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.balance.BalanceReservations;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.stripe.StripeClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.balance")
+public class BalanceConfig {
+
+    /** How long a balance read is served to other callers before Stripe is asked again. */
+    private Duration ttl = Duration.ofSeconds(5);
+
+    /** How often the available balance behind transfer reservations is re-read (once transfers were made); 0 = never. */
+    private Duration reconcileInterval = Duration.ofSeconds(30);
+    /** A transfer the reservations cannot cover triggers a new balance read if the last one is older than this. */
+    private Duration recheckAfter = Duration.ofSeconds(2);
+
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+    public void setReconcileInterval(Duration reconcileInterval) { this.reconcileInterval = reconcileInterval; }
+    public void setRecheckAfter(Duration recheckAfter) { this.recheckAfter = recheckAfter; }
+
+    public BalanceService balanceService(String tenant, StripeClient stripeClient, MeterRegistry meterRegistry) {
+        return new BalanceService(stripeClient, ttl, CacheMetrics.of(meterRegistry, "balance", tenant));
+    }
+
+    /** Transfer reservations of one tenant, started; closed with the tenant. */
+    public BalanceReservations balanceReservations(String tenant, BalanceService balanceService, MeterRegistry meterRegistry) {
+        BalanceReservations reservations = new BalanceReservations(balanceService, recheckAfter, tenant);
+        FunctionCounter.builder("app.balance.reservations", reservations, BalanceReservations::admitted)
+                .description("Transfers checked against the locally reserved platform balance")
+                .tag("tenant", tenant)
+                .tag("result", "admitted")
+                .register(meterRegistry);
+        FunctionCounter.builder("app.balance.reservations", reservations, BalanceReservations::rejected)
+                .description("Transfers checked against the locally reserved platform balance")
+                .tag("tenant", tenant)
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        reservations.start(reconcileInterval);
+        return reservations;
+    }
+}
@@ -0,0 +1,64 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreaker;
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreakers;
+import com.djust.stripeconnectdemo.stripe.CircuitBreakerHttpClient;
+import com.stripe.net.HttpClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.circuit-breaker")
+public class CircuitBreakerConfig {
+
+    /** When false, Stripe calls are never refused locally (breakers still report their state). */
+    private boolean enabled = true;
+    /** Outcomes remembered per operation family. */
+    private int window = 20;
+    /** Outcomes needed before the failure rate is trusted. */
+    private int minimumCalls = 10;
+    /** Share of failed calls (0..1) that opens the circuit. */
+    private double failureRateThreshold = 0.5;
+    /** A call slower than this counts as failed, even if it eventually succeeds. */
+    private Duration slowCallThreshold = Duration.ofSeconds(10);
+    /** How long an open circuit refuses calls before letting probes through. */
+    private Duration openDuration = Duration.ofSeconds(30);
+    /** Probe calls that must all succeed to close the circuit again. */
+    private int halfOpenProbes = 3;
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public void setWindow(int window) { this.window = window; }
+    public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+    public void setFailureRateThreshold(double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+    public void setSlowCallThreshold(Duration slowCallThreshold) { this.slowCallThreshold = slowCallThreshold; }
+    public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+    public void setHalfOpenProbes(int halfOpenProbes) { this.halfOpenProbes = halfOpenProbes; }
+
+    /** Breakers of one tenant; each family gets its meters when first used. */
+    public CircuitBreakers circuitBreakers(String tenant, MeterRegistry meterRegistry) {
+        return new CircuitBreakers(family -> {
+            CircuitBreaker breaker = new CircuitBreaker(family, window, minimumCalls, failureRateThreshold, openDuration, halfOpenProbes);
+            Gauge.builder("app.stripe.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("Circuit of a Stripe operation family: 0 closed, 1 half-open, 2 open")
+                    .tag("tenant", tenant)
+                    .tag("family", family)
+                    .register(meterRegistry);
+            FunctionCounter.builder("app.stripe.circuit.rejected", breaker, CircuitBreaker::rejected)
+                    .description("Stripe calls refused locally while their circuit was open")
+                    .tag("tenant", tenant)
+                    .tag("family", family)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    /** Wraps one HTTP attempt (under pacing and retries, see RateLimitConfig.stripeHttpClient). */
+    public HttpClient stripeHttpClient(HttpClient attempt, CircuitBreakers circuitBreakers) {
+        return enabled ? new CircuitBreakerHttpClient(attempt, circuitBreakers, slowCallThreshold) : attempt;
+    }
+}
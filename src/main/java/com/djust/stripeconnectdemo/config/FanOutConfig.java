@@ -0,0 +1,28 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.FanOutExecutor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.fanout")
+public class FanOutConfig {
+
+    /** Max Stripe calls in flight at once across all fan-outs of one tenant (keeps us under Stripe's rate limit). */
+    private int maxConcurrency = 16;
+    /** Timeout for a single call once it has started. */
+    private Duration perCallTimeout = Duration.ofSeconds(5);
+    /** Global deadline for a fan-out; unfinished calls are returned as per-item errors. */
+    private Duration deadline = Duration.ofSeconds(8);
+
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+    public void setPerCallTimeout(Duration perCallTimeout) { this.perCallTimeout = perCallTimeout; }
+    public void setDeadline(Duration deadline) { this.deadline = deadline; }
+
+    /** One per tenant, closed with it. */
+    public FanOutExecutor fanOutExecutor() {
+        return new FanOutExecutor(maxConcurrency, perCallTimeout, deadline);
+    }
+}
@@ -0,0 +1,34 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.fee.FeeEngine;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.fees")
+public class FeeConfig {
+
+    /** Fee schedule of the default tenant; other tenants use data/fees-<id>.csv unless set. A missing file means no computed fees. */
+    private String path = "data/fees.csv";
+    /** How often the file's mtime is checked for changes. */
+    private Duration reloadInterval = Duration.ofSeconds(10);
+
+    public void setPath(String path) { this.path = path; }
+    public void setReloadInterval(Duration reloadInterval) { this.reloadInterval = reloadInterval; }
+
+    /** Fee engine of one tenant, watching its schedule file; closed with the tenant. */
+    public FeeEngine feeEngine(String tenant, String pathOverride) {
+        FeeEngine engine = new FeeEngine(Path.of(schedulePath(tenant, pathOverride)), tenant);
+        engine.start(reloadInterval);
+        return engine;
+    }
+
+    private String schedulePath(String tenant, String pathOverride) {
+        if (pathOverride != null) return pathOverride;
+        if (StripeConfig.DEFAULT_TENANT.equals(tenant)) return path;
+        return "data/fees-" + tenant + ".csv";
+    }
+}
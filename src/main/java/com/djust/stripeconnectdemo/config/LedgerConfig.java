@@ -0,0 +1,48 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.ledger.EarningsLedger;
+import com.djust.stripeconnectdemo.service.ledger.FeeReconciler;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.stripe.StripeClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.ledger")
+public class LedgerConfig {
+
+    /** Directory of the earnings ledgers (one ledger-<tenant>.log per tenant). */
+    private String dir = "data";
+    /** Most recent Stripe ids remembered to ignore replayed webhooks. */
+    private int dedupCapacity = 200_000;
+    /** Reconcile the previous UTC day against Stripe on a schedule; POST /reports/fees/reconcile works either way. */
+    private boolean reconcile = true;
+    private Duration reconcileInterval = Duration.ofHours(6);
+
+    public void setDir(String dir) { this.dir = dir; }
+    public void setDedupCapacity(int dedupCapacity) { this.dedupCapacity = dedupCapacity; }
+    public void setReconcile(boolean reconcile) { this.reconcile = reconcile; }
+    public void setReconcileInterval(Duration reconcileInterval) { this.reconcileInterval = reconcileInterval; }
+
+    /** Ledger of one tenant, replayed; closed with the tenant. */
+    public EarningsLedger earningsLedger(String tenant, MeterRegistry meterRegistry) throws IOException {
+        EarningsLedger ledger = new EarningsLedger(Path.of(dir, "ledger-" + tenant + ".log"), dedupCapacity);
+        Gauge.builder("app.ledger.entries", ledger, EarningsLedger::entries)
+                .description("Fees and Djust transfers recorded in the earnings ledger")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        return ledger;
+    }
+
+    public FeeReconciler feeReconciler(String tenant, StripeClient stripeClient, EarningsLedger ledger, AccountRegistry accountRegistry) {
+        FeeReconciler reconciler = new FeeReconciler(stripeClient, ledger, accountRegistry, tenant);
+        if (reconcile) reconciler.start(reconcileInterval);
+        return reconciler;
+    }
+}
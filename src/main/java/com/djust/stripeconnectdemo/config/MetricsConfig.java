@@ -0,0 +1,32 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.web.StripeCallsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private StripeCallsInterceptor stripeCalls;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(stripeCalls()).excludePathPatterns("/actuator/**", "/static/**");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(stripeCalls());
+    }
+
+    private StripeCallsInterceptor stripeCalls() {
+        if (stripeCalls == null) stripeCalls = new StripeCallsInterceptor(meterRegistry);
+        return stripeCalls;
+    }
+}
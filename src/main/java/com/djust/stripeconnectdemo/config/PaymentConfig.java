@@ -0,0 +1,93 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.djust.stripeconnectdemo.service.outbox.PaymentOutbox;
+import com.djust.stripeconnectdemo.service.payment.OrderIdempotency;
+import com.djust.stripeconnectdemo.service.payment.PaymentBatchService;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentCache;
+import com.djust.stripeconnectdemo.service.payment.PaymentService;
+import com.stripe.StripeClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.payments")
+public class PaymentConfig {
+
+    /** Orders remembered locally (order_id -> PaymentIntent). */
+    private int idempotencyMaxEntries = 100_000;
+    /** How long a repeat order is answered locally; Stripe itself keeps idempotency keys for 24h. */
+    private Duration idempotencyTtl = Duration.ofHours(24);
+    /** PaymentIntents remembered for GET /payments/{id}. */
+    private int intentCacheMaxEntries = 50_000;
+    /** How long a succeeded or canceled PaymentIntent is served locally. */
+    private Duration intentTerminalTtl = Duration.ofHours(1);
+    /** How long any other status is served before the next poll reads Stripe again. */
+    private Duration intentPendingTtl = Duration.ofSeconds(2);
+    /** Max items accepted by POST /payments/batch. */
+    private int batchMaxItems = 10_000;
+    /** PaymentIntent creations in flight at once for a batch. */
+    private int batchConcurrency = 8;
+    /** Creations per second for a batch (token bucket). */
+    private double batchRatePerSecond = 20;
+    /** Directory of the async payment outboxes (one outbox-<tenant>.log per tenant). */
+    private String outboxDir = "data";
+    /** Workers draining each tenant's outbox to Stripe. */
+    private int outboxWorkers = 4;
+    /** Attempts for connection errors, 429 and 5xx before an async payment is failed. */
+    private int outboxMaxAttempts = 8;
+    /** First retry delay, doubled on each attempt up to outboxMaxBackoff. */
+    private Duration outboxRetryBackoff = Duration.ofSeconds(1);
+    private Duration outboxMaxBackoff = Duration.ofMinutes(1);
+    /** How long finished async payments can still be polled; keep below Stripe's 24h idempotency window. */
+    private Duration outboxRetention = Duration.ofHours(24);
+    /** Records of dropped (expired) entries the log may hold before it is rewritten. */
+    private int outboxCompactionThreshold = 10_000;
+
+    public void setIdempotencyMaxEntries(int idempotencyMaxEntries) { this.idempotencyMaxEntries = idempotencyMaxEntries; }
+    public void setIdempotencyTtl(Duration idempotencyTtl) { this.idempotencyTtl = idempotencyTtl; }
+    public void setIntentCacheMaxEntries(int intentCacheMaxEntries) { this.intentCacheMaxEntries = intentCacheMaxEntries; }
+    public void setIntentTerminalTtl(Duration intentTerminalTtl) { this.intentTerminalTtl = intentTerminalTtl; }
+    public void setIntentPendingTtl(Duration intentPendingTtl) { this.intentPendingTtl = intentPendingTtl; }
+    public void setBatchMaxItems(int batchMaxItems) { this.batchMaxItems = batchMaxItems; }
+    public void setBatchConcurrency(int batchConcurrency) { this.batchConcurrency = batchConcurrency; }
+    public void setBatchRatePerSecond(double batchRatePerSecond) { this.batchRatePerSecond = batchRatePerSecond; }
+    public void setOutboxDir(String outboxDir) { this.outboxDir = outboxDir; }
+    public void setOutboxWorkers(int outboxWorkers) { this.outboxWorkers = outboxWorkers; }
+    public void setOutboxMaxAttempts(int outboxMaxAttempts) { this.outboxMaxAttempts = outboxMaxAttempts; }
+    public void setOutboxRetryBackoff(Duration outboxRetryBackoff) { this.outboxRetryBackoff = outboxRetryBackoff; }
+    public void setOutboxMaxBackoff(Duration outboxMaxBackoff) { this.outboxMaxBackoff = outboxMaxBackoff; }
+    public void setOutboxRetention(Duration outboxRetention) { this.outboxRetention = outboxRetention; }
+    public void setOutboxCompactionThreshold(int outboxCompactionThreshold) { this.outboxCompactionThreshold = outboxCompactionThreshold; }
+
+    public OrderIdempotency orderIdempotency(String tenant, MeterRegistry meterRegistry) {
+        return new OrderIdempotency(idempotencyMaxEntries, idempotencyTtl, CacheMetrics.of(meterRegistry, "order-idempotency", tenant));
+    }
+
+    public PaymentIntentCache paymentIntentCache(String tenant, StripeClient stripeClient, MeterRegistry meterRegistry) {
+        return new PaymentIntentCache(stripeClient, intentCacheMaxEntries, intentTerminalTtl, intentPendingTtl,
+                CacheMetrics.of(meterRegistry, "payment-intent", tenant));
+    }
+
+    /** Outbox of one tenant, replayed and started. */
+    public PaymentOutbox paymentOutbox(String tenant, PaymentService paymentService, MeterRegistry meterRegistry) throws IOException {
+        PaymentOutbox outbox = new PaymentOutbox(paymentService, Path.of(outboxDir, "outbox-" + tenant + ".log"), outboxMaxAttempts,
+                outboxRetryBackoff, outboxMaxBackoff, outboxRetention, outboxCompactionThreshold);
+        Gauge.builder("app.outbox.pending", outbox, PaymentOutbox::pending)
+                .description("Async payments accepted but not yet sent to Stripe successfully or failed")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        outbox.start(outboxWorkers);
+        return outbox;
+    }
+
+    public PaymentBatchService paymentBatchService(PaymentService paymentService) {
+        return new PaymentBatchService(paymentService, batchMaxItems, batchConcurrency, batchRatePerSecond);
+    }
+}
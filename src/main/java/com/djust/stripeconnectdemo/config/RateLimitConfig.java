@@ -0,0 +1,52 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.ratelimit.AdaptiveRateLimiter;
+import com.djust.stripeconnectdemo.stripe.MeteredHttpClient;
+import com.djust.stripeconnectdemo.stripe.PacedHttpClient;
+import com.stripe.net.HttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.rate-limit")
+public class RateLimitConfig {
+
+    /** Requests per second while Stripe is not throttling us (Stripe allows 25/s in test mode, 100/s live). */
+    private double ratePerSecond = 20;
+    /** Floor the rate can drop to after repeated 429s. */
+    private double minRatePerSecond = 2;
+    /** Bucket size (short bursts above the rate). */
+    private double burst = 10;
+    /** Share of the bucket dashboard reads must leave to payments/transfers. */
+    private double highPriorityReserve = 0.3;
+    /** Retries after 429 / 5xx / connection errors. */
+    private int maxRetries = 3;
+    private Duration retryBaseDelay = Duration.ofMillis(250);
+    private Duration retryMaxDelay = Duration.ofSeconds(5);
+
+    public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+    public void setMinRatePerSecond(double minRatePerSecond) { this.minRatePerSecond = minRatePerSecond; }
+    public void setBurst(double burst) { this.burst = burst; }
+    public void setHighPriorityReserve(double highPriorityReserve) { this.highPriorityReserve = highPriorityReserve; }
+    public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+    public void setRetryBaseDelay(Duration retryBaseDelay) { this.retryBaseDelay = retryBaseDelay; }
+    public void setRetryMaxDelay(Duration retryMaxDelay) { this.retryMaxDelay = retryMaxDelay; }
+
+    /** Limiter of one tenant; null overrides keep the stripe.rate-limit.* values. */
+    public AdaptiveRateLimiter stripeRateLimiter(Double ratePerSecondOverride, Double burstOverride) {
+        return new AdaptiveRateLimiter(ratePerSecondOverride != null ? ratePerSecondOverride : ratePerSecond, minRatePerSecond,
+                burstOverride != null ? burstOverride : burst, highPriorityReserve);
+    }
+
+    /** {@code perAttempt} decorates each HTTP attempt below pacing and retries (circuit breakers). */
+    public HttpClient stripeHttpClient(String tenant, HttpClient transport, AdaptiveRateLimiter stripeRateLimiter, MeterRegistry meterRegistry,
+                                       UnaryOperator<HttpClient> perAttempt) {
+        // pacing/retries -> circuit breakers -> per-attempt metrics -> HTTP
+        HttpClient metered = new MeteredHttpClient(transport, meterRegistry, tenant);
+        return new PacedHttpClient(perAttempt.apply(metered), stripeRateLimiter, maxRetries, retryBaseDelay, retryMaxDelay);
+    }
+}
@@ -0,0 +1,41 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.service.registry.FileAccountRegistry;
+import com.djust.stripeconnectdemo.service.registry.InMemoryAccountRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.registry")
+public class RegistryConfig {
+
+    /** "memory" (lost on restart) or "file" (append-only log replayed at startup). */
+    private String type = "memory";
+    /** Log file of the default tenant when type = file; other tenants use data/accounts-<id>.log unless set. */
+    private String path = "data/accounts.log";
+    /** Minimum number of log records before compaction is considered. */
+    private int compactionThreshold = 10_000;
+
+    public void setType(String type) { this.type = type; }
+    public void setPath(String path) { this.path = path; }
+    public void setCompactionThreshold(int compactionThreshold) { this.compactionThreshold = compactionThreshold; }
+
+    /** Registry of one tenant (connected accounts + Djust account). */
+    public AccountRegistry accountRegistry(String tenant, String pathOverride) throws IOException {
+        return switch (type) {
+            case "memory" -> new InMemoryAccountRegistry();
+            case "file" -> new FileAccountRegistry(Path.of(logPath(tenant, pathOverride)), compactionThreshold);
+            default -> throw new IllegalStateException("Unknown stripe.registry.type '" + type + "' (expected memory or file)");
+        };
+    }
+
+    private String logPath(String tenant, String pathOverride) {
+        if (pathOverride != null) return pathOverride;
+        if (StripeConfig.DEFAULT_TENANT.equals(tenant)) return path;
+        return "data/accounts-" + tenant + ".log";
+    }
+}
@@ -0,0 +1,28 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.web.StateBroadcasters;
+import com.djust.stripeconnectdemo.web.StateJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.state-stream")
+public class StateStreamConfig {
+
+    /** How often a tenant's shared state is refreshed and diffs pushed, while at least one client is subscribed. */
+    private Duration interval = Duration.ofSeconds(5);
+    /** Server-side lifetime of one SSE connection; EventSource reconnects transparently. */
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+
+    public void setInterval(Duration interval) { this.interval = interval; }
+    public void setEmitterTimeout(Duration emitterTimeout) { this.emitterTimeout = emitterTimeout; }
+
+    @Bean(destroyMethod = "close")
+    public StateBroadcasters stateBroadcasters(StateJsonWriter stateJsonWriter, ObjectMapper objectMapper) {
+        return new StateBroadcasters(stateJsonWriter, objectMapper, interval, emitterTimeout);
+    }
+}
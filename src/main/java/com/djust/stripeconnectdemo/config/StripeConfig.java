@@ -1,15 +1,30 @@
 package com.djust.stripeconnectdemo.config;
 
+import com.djust.stripeconnectdemo.stripe.StripeClientOptions;
+import com.stripe.Stripe;
 import com.stripe.StripeClient;
+import com.stripe.net.HttpClient;
+import com.stripe.net.LiveStripeResponseGetter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stripe platforms served by this process.
+ * - stripe.* is the "default" tenant (requests without a tenant)
+ * - stripe.tenants.<id>.* adds a platform; unset apiBase falls back to the default tenant's, unset rootUrl to
+ *   the default tenant's followed by /t/<id> (so redirects come back to the same tenant)
+ */
 @Configuration
 @ConfigurationProperties(prefix = "stripe")
 public class StripeConfig {
 
+    public static final String DEFAULT_TENANT = "default";
+
     /** Secret key, ex: sk_test_... Must be provided. */
     private String secretKey;
     /** Target API version to lock behavior to. */
@@ -18,23 +33,88 @@ public class StripeConfig {
     private String rootUrl;
     /** Publishable key used by Stripe.js on the client (optional). */
     private String publishableKey;
+    /** Signing secret of the webhook endpoint (whsec_...), required by POST /webhooks/stripe. */
+    private String webhookSecret;
+    /** Stripe API base URL; override to point the client at a local stub server. */
+    private String apiBase = Stripe.LIVE_API_BASE;
+    /** Additional platforms, selected with the X-Tenant header or a /t/{id} path prefix. */
+    private Map<String, TenantProperties> tenants = new LinkedHashMap<>();
 
     public void setSecretKey(String secretKey) { this.secretKey = secretKey; }
     public void setApiVersion(String apiVersion) { this.apiVersion = apiVersion; }
     public void setRootUrl(String rootUrl) { this.rootUrl = rootUrl; }
     public void setPublishableKey(String publishableKey) { this.publishableKey = publishableKey; }
+    public void setWebhookSecret(String webhookSecret) { this.webhookSecret = webhookSecret; }
+    public void setApiBase(String apiBase) { this.apiBase = apiBase; }
+    public void setTenants(Map<String, TenantProperties> tenants) { this.tenants = tenants; }
+
+    /** Settings of one platform (stripe.tenants.<id>.*). Unset limits fall back to stripe.rate-limit.*. */
+    public static class TenantProperties {
+        private String secretKey;
+        private String publishableKey;
+        private String webhookSecret;
+        private String rootUrl;
+        private String apiBase;
+        /** Overrides stripe.rate-limit.ratePerSecond for this platform (each Stripe account has its own limit). */
+        private Double ratePerSecond;
+        /** Overrides stripe.rate-limit.burst for this platform. */
+        private Double burst;
+        /** Registry log file when stripe.registry.type = file (default data/accounts-<id>.log). */
+        private String registryPath;
+        /** Fee schedule CSV (default data/fees-<id>.csv). */
+        private String feeSchedulePath;
+
+        public void setSecretKey(String secretKey) { this.secretKey = secretKey; }
+        public void setPublishableKey(String publishableKey) { this.publishableKey = publishableKey; }
+        public void setWebhookSecret(String webhookSecret) { this.webhookSecret = webhookSecret; }
+        public void setRootUrl(String rootUrl) { this.rootUrl = rootUrl; }
+        public void setApiBase(String apiBase) { this.apiBase = apiBase; }
+        public void setRatePerSecond(Double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+        public void setBurst(Double burst) { this.burst = burst; }
+        public void setRegistryPath(String registryPath) { this.registryPath = registryPath; }
+        public void setFeeSchedulePath(String feeSchedulePath) { this.feeSchedulePath = feeSchedulePath; }
 
-    public String getRootUrl() { return rootUrl; }
-    public String getPublishableKey() { return publishableKey; }
+        public String getSecretKey() { return secretKey; }
+        public String getPublishableKey() { return publishableKey; }
+        public String getWebhookSecret() { return webhookSecret; }
+        public String getRootUrl() { return rootUrl; }
+        public String getApiBase() { return apiBase; }
+        public Double getRatePerSecond() { return ratePerSecond; }
+        public Double getBurst() { return burst; }
+        public String getRegistryPath() { return registryPath; }
+        public String getFeeSchedulePath() { return feeSchedulePath; }
+    }
+
+    /** All tenants by id, "default" first, with fallbacks applied. */
+    public Map<String, TenantProperties> resolvedTenants() {
+        Map<String, TenantProperties> out = new LinkedHashMap<>();
+        TenantProperties main = new TenantProperties();
+        main.setSecretKey(secretKey);
+        main.setPublishableKey(publishableKey);
+        main.setWebhookSecret(webhookSecret);
+        main.setRootUrl(rootUrl);
+        main.setApiBase(apiBase);
+        out.put(DEFAULT_TENANT, main);
+        tenants.forEach((id, t) -> {
+            if (DEFAULT_TENANT.equals(id)) throw new IllegalStateException("stripe.tenants." + id + " is reserved: configure it with stripe.*");
+            if (t.getRootUrl() == null && rootUrl != null) t.setRootUrl(StringUtils.trimTrailingCharacter(rootUrl, '/') + "/t/" + id);
+            if (t.getApiBase() == null) t.setApiBase(apiBase);
+            out.put(id, t);
+        });
+        return out;
+    }
 
-    @Bean
-    public StripeClient stripeClient() {
+    /** Stripe client of one tenant on its own paced/retrying transport. */
+    public StripeClient stripeClient(String tenant, TenantProperties props, HttpClient httpClient, Duration connectTimeout, Duration readTimeout) {
         // Fail fast with clear messages if configuration is missing
-        if (!StringUtils.hasText(secretKey) || secretKey.contains("__PUT_YOUR_")) {
-            throw new IllegalStateException("Missing Stripe secret key (stripe.secretKey). Hint: set in application.yaml or env STRIPE_SECRETKEY");
+        String key = props.getSecretKey();
+        if (!StringUtils.hasText(key) || key.contains("__PUT_YOUR_")) {
+            String property = DEFAULT_TENANT.equals(tenant) ? "stripe.secretKey" : "stripe.tenants." + tenant + ".secretKey";
+            throw new IllegalStateException("Missing Stripe secret key (" + property + "). Hint: set in application.yaml or env STRIPE_SECRETKEY");
         }
 
-        // Build Stripe client; version defaults to account settings
-        return new StripeClient(secretKey);
+        // Version defaults to account settings
+        StripeClientOptions options = new StripeClientOptions(key, props.getApiBase(), (int) connectTimeout.toMillis(), (int) readTimeout.toMillis());
+        return new StripeClient(new LiveStripeResponseGetter(options, httpClient));
     }
-}
\ No newline at end of file
+}
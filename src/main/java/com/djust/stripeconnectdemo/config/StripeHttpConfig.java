@@ -0,0 +1,56 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.stripe.JdkHttpClient;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpURLConnectionClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.http")
+public class StripeHttpConfig {
+
+    /** "jdk" (pooled java.net.http client, one pool per tenant) or "urlconnection" (SDK default, JVM-wide keep-alive cache). */
+    private String transport = "jdk";
+    /** HTTP_2 (falls back to HTTP/1.1 when the server does not negotiate it) or HTTP_1_1. */
+    private java.net.http.HttpClient.Version version = java.net.http.HttpClient.Version.HTTP_2;
+    /** Requests in flight at once per tenant; bounds open connections with HTTP/1.1. */
+    private int maxConnections = 32;
+    private Duration connectTimeout = Duration.ofSeconds(30);
+    /** Time to wait for response headers (Stripe's SDK default read timeout is 80s). */
+    private Duration readTimeout = Duration.ofSeconds(80);
+    /** Idle pooled connections are closed after this; process-wide (jdk.httpclient.keepalive.timeout). */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    public void setTransport(String transport) { this.transport = transport; }
+    public void setVersion(java.net.http.HttpClient.Version version) { this.version = version; }
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+    public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    public Duration getConnectTimeout() { return connectTimeout; }
+    public Duration getReadTimeout() { return readTimeout; }
+
+    /** Bottom of one tenant's transport chain (see RateLimitConfig.stripeHttpClient). */
+    public HttpClient transport(String tenant, MeterRegistry meterRegistry) {
+        return switch (transport) {
+            case "jdk" -> {
+                // Read once by the JDK when its first client is created; an explicit -D wins
+                System.getProperties().putIfAbsent("jdk.httpclient.keepalive.timeout", Long.toString(idleTimeout.toSeconds()));
+                JdkHttpClient client = new JdkHttpClient(version, maxConnections, connectTimeout, readTimeout);
+                Gauge.builder("stripe.client.connections.in_use", client, JdkHttpClient::inFlight)
+                        .description("Stripe requests holding a pooled connection")
+                        .tag("tenant", tenant)
+                        .register(meterRegistry);
+                yield client;
+            }
+            case "urlconnection" -> new HttpURLConnectionClient();
+            default -> throw new IllegalStateException("Unknown stripe.http.transport '" + transport + "' (expected jdk or urlconnection)");
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.balance.BalanceReservations;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.ledger.EarningsLedger;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.service.sweep.FeeLedger;
+import com.djust.stripeconnectdemo.service.sweep.FeeSweeper;
+import com.stripe.StripeClient;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stripe.sweep")
+public class SweepConfig {
+
+    /** Run the scheduler; when false fees still accrue and can be flushed with POST /transfers/djust/sweep. */
+    private boolean enabled = true;
+    /** Flush a currency once this much (minor units) has accrued. */
+    private long minAmount = 10_000;
+    /** Flush a currency once its oldest accrued fee is this old, whatever the amount. */
+    private Duration maxInterval = Duration.ofHours(1);
+    /** How often thresholds and retries are checked. */
+    private Duration tick = Duration.ofSeconds(10);
+    /** First retry delay after a failed sweep, doubled on each attempt up to maxBackoff. */
+    private Duration retryBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofMinutes(30);
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public void setMinAmount(long minAmount) { this.minAmount = minAmount; }
+    public void setMaxInterval(Duration maxInterval) { this.maxInterval = maxInterval; }
+    public void setTick(Duration tick) { this.tick = tick; }
+    public void setRetryBackoff(Duration retryBackoff) { this.retryBackoff = retryBackoff; }
+    public void setMaxBackoff(Duration maxBackoff) { this.maxBackoff = maxBackoff; }
+
+    /** Sweeper of one tenant, started when enabled; closed with the tenant. */
+    public FeeSweeper feeSweeper(StripeClient stripeClient, FeeLedger feeLedger, EarningsLedger earningsLedger, AccountRegistry accountRegistry,
+                                 AccountStatusCache accountStatusCache, BalanceService balanceService, BalanceReservations balanceReservations) {
+        FeeSweeper sweeper = new FeeSweeper(stripeClient, feeLedger, earningsLedger, accountRegistry, accountStatusCache, balanceService,
+                balanceReservations, minAmount, maxInterval, retryBackoff, maxBackoff);
+        if (enabled) sweeper.start(tick);
+        return sweeper;
+    }
+}
@@ -0,0 +1,96 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.FanOutExecutor;
+import com.djust.stripeconnectdemo.service.account.AccountLinkService;
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.account.AccountSync;
+import com.djust.stripeconnectdemo.service.balance.BalanceReservations;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreakers;
+import com.djust.stripeconnectdemo.service.fee.FeeEngine;
+import com.djust.stripeconnectdemo.service.ledger.EarningsLedger;
+import com.djust.stripeconnectdemo.service.ledger.FeeReconciler;
+import com.djust.stripeconnectdemo.service.outbox.PaymentOutbox;
+import com.djust.stripeconnectdemo.service.payment.PaymentBatchService;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentCache;
+import com.djust.stripeconnectdemo.service.payment.PaymentService;
+import com.djust.stripeconnectdemo.service.ratelimit.AdaptiveRateLimiter;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.service.state.StateService;
+import com.djust.stripeconnectdemo.service.sweep.FeeLedger;
+import com.djust.stripeconnectdemo.service.sweep.FeeSweeper;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import com.djust.stripeconnectdemo.service.tenant.TenantRegistry;
+import com.stripe.StripeClient;
+import com.stripe.net.HttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds one isolated service stack per tenant from the stripe.* settings:
+ * connection pool + circuit breakers + rate limiter -> StripeClient -> registry (+ sync), caches, fee schedule, payments, state, earnings ledger, fee sweep.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class TenantConfig {
+
+    private final StripeConfig stripeConfig;
+    private final StripeHttpConfig stripeHttpConfig;
+    private final RateLimitConfig rateLimitConfig;
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final FanOutConfig fanOutConfig;
+    private final RegistryConfig registryConfig;
+    private final AccountStatusConfig accountStatusConfig;
+    private final AccountLinkConfig accountLinkConfig;
+    private final AccountSyncConfig accountSyncConfig;
+    private final BalanceConfig balanceConfig;
+    private final FeeConfig feeConfig;
+    private final PaymentConfig paymentConfig;
+    private final LedgerConfig ledgerConfig;
+    private final SweepConfig sweepConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Bean(destroyMethod = "close")
+    public TenantRegistry tenantRegistry() throws IOException {
+        Map<String, Tenant> tenants = new LinkedHashMap<>();
+        for (Map.Entry<String, StripeConfig.TenantProperties> e : stripeConfig.resolvedTenants().entrySet()) {
+            tenants.put(e.getKey(), tenant(e.getKey(), e.getValue()));
+        }
+        return new TenantRegistry(tenants, StripeConfig.DEFAULT_TENANT);
+    }
+
+    private Tenant tenant(String id, StripeConfig.TenantProperties props) throws IOException {
+        AdaptiveRateLimiter rateLimiter = rateLimitConfig.stripeRateLimiter(props.getRatePerSecond(), props.getBurst());
+        HttpClient transport = stripeHttpConfig.transport(id, meterRegistry);
+        CircuitBreakers breakers = circuitBreakerConfig.circuitBreakers(id, meterRegistry);
+        HttpClient paced = rateLimitConfig.stripeHttpClient(id, transport, rateLimiter, meterRegistry,
+                attempt -> circuitBreakerConfig.stripeHttpClient(attempt, breakers));
+        StripeClient stripe = stripeConfig.stripeClient(id, props, paced, stripeHttpConfig.getConnectTimeout(), stripeHttpConfig.getReadTimeout());
+        FanOutExecutor fanOut = fanOutConfig.fanOutExecutor();
+        AccountRegistry registry = registryConfig.accountRegistry(id, props.getRegistryPath());
+        AccountStatusCache statusCache = accountStatusConfig.accountStatusCache(id, meterRegistry);
+        String rootUrl = props.getRootUrl() == null ? "" : props.getRootUrl();
+        AccountLinkService links = accountLinkConfig.accountLinkService(id, stripe, rootUrl, meterRegistry);
+        AccountSync accountSync = accountSyncConfig.accountSync(id, stripe, registry, statusCache, meterRegistry);
+        BalanceService balance = balanceConfig.balanceService(id, stripe, meterRegistry);
+        BalanceReservations reservations = balanceConfig.balanceReservations(id, balance, meterRegistry);
+        FeeEngine fees = feeConfig.feeEngine(id, props.getFeeSchedulePath());
+        PaymentIntentCache intents = paymentConfig.paymentIntentCache(id, stripe, meterRegistry);
+        PaymentService payments = new PaymentService(stripe, paymentConfig.orderIdempotency(id, meterRegistry), fees, intents);
+        PaymentBatchService batches = paymentConfig.paymentBatchService(payments);
+        PaymentOutbox outbox = paymentConfig.paymentOutbox(id, payments, meterRegistry);
+        StateService state = new StateService(stripe, rootUrl, registry, fanOut, balance, statusCache);
+        FeeLedger feeLedger = new FeeLedger();
+        EarningsLedger earnings = ledgerConfig.earningsLedger(id, meterRegistry);
+        FeeSweeper sweeper = sweepConfig.feeSweeper(stripe, feeLedger, earnings, registry, statusCache, balance, reservations);
+        FeeReconciler reconciler = ledgerConfig.feeReconciler(id, stripe, earnings, registry);
+        return new Tenant(id, rootUrl, props.getPublishableKey(), props.getWebhookSecret(), transport, stripe, rateLimiter, breakers, fanOut,
+                registry, statusCache, links, accountSync, balance, reservations, fees, intents, payments, batches, outbox, state, feeLedger, sweeper, earnings, reconciler);
+    }
+}
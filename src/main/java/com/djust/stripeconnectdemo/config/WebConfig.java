@@ -0,0 +1,45 @@
+package com.djust.stripeconnectdemo.config;
+
+import com.djust.stripeconnectdemo.service.tenant.TenantRegistry;
+import com.djust.stripeconnectdemo.web.RespondAsync;
+import com.djust.stripeconnectdemo.web.RespondAsyncCondition;
+import com.djust.stripeconnectdemo.web.TenantArgumentResolver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final TenantRegistry tenantRegistry;
+
+    /** Handler mapping that also matches {@link RespondAsync} handlers on the Prefer header. */
+    @Bean
+    public WebMvcRegistrations respondAsyncMappings() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new RequestMappingHandlerMapping() {
+                    @Override
+                    protected RequestCondition<?> getCustomMethodCondition(Method method) {
+                        return method.isAnnotationPresent(RespondAsync.class) ? RespondAsyncCondition.INSTANCE : null;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new TenantArgumentResolver(tenantRegistry));
+    }
+}
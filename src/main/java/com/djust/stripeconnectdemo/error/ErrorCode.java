@@ -26,6 +26,7 @@ public enum ErrorCode {
 
     // Stripe and infrastructure
     STRIPE_API_ERROR,
+    STRIPE_UNAVAILABLE,
     RATE_LIMITED,
     INTERNAL_ERROR
 }
\ No newline at end of file
@@ -1,7 +1,12 @@
 package com.djust.stripeconnectdemo.error;
 
+import com.djust.stripeconnectdemo.stripe.CircuitOpenException;
 import com.stripe.exception.RateLimitException;
 import com.stripe.exception.StripeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -13,21 +18,27 @@ import java.util.HashMap;
 import java.util.Map;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ApiError> handleBusiness(BusinessException ex) {
         HttpStatus status = switch (ex.getCode()) {
             case ONBOARDING_REQUIRED -> HttpStatus.CONFLICT;           // 409
             case INSUFFICIENT_FUNDS -> HttpStatus.CONFLICT;            // 409
+            case CONFLICT -> HttpStatus.CONFLICT;                      // 409
             case VALIDATION_ERROR, BAD_REQUEST -> HttpStatus.BAD_REQUEST; // 400
             case NOT_FOUND -> HttpStatus.NOT_FOUND;                    // 404
             case RATE_LIMITED -> HttpStatus.TOO_MANY_REQUESTS;         // 429
             case PAYMENT_AUTHENTICATION_FAILED, PAYMENT_DECLINED -> HttpStatus.PAYMENT_REQUIRED; // 402
             case CAPABILITY_NOT_SUPPORTED, CURRENCY_MISMATCH, AMOUNT_TOO_SMALL -> HttpStatus.BAD_REQUEST;
             case STRIPE_API_ERROR -> HttpStatus.BAD_GATEWAY;           // 502 - upstream error
+            case STRIPE_UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE; // 503 - circuit open, not attempted
             default -> HttpStatus.INTERNAL_SERVER_ERROR;               // 500
         };
+        count(ex.getCode());
         ApiError body = ApiError.builder()
                 .code(ex.getCode().name())
                 .message(ex.getMessage())
@@ -37,11 +48,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, status);
     }
 
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<ApiError> handleCircuitOpen(CircuitOpenException ex) {
+        // Refused locally: the call was never sent, clients may retry once the circuit lets probes through
+        count(ErrorCode.STRIPE_UNAVAILABLE);
+        ApiError body = ApiError.builder()
+                .code(ErrorCode.STRIPE_UNAVAILABLE.name())
+                .message(ex.getMessage())
+                .timestamp(Instant.now())
+                .details(Map.of("family", ex.getFamily(), "retry_after_seconds", ex.getRetryAfterSeconds()))
+                .build();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfterSeconds())))
+                .body(body);
+    }
+
     @ExceptionHandler(StripeException.class)
     public ResponseEntity<ApiError> handleStripe(StripeException ex) {
         // Map Stripe exceptions to stable codes; surface message safely
         ErrorCode code = (ex instanceof RateLimitException) ? ErrorCode.RATE_LIMITED : ErrorCode.STRIPE_API_ERROR;
         HttpStatus status = (ex instanceof RateLimitException) ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.BAD_GATEWAY;
+        count(code);
         Map<String, Object> details = new HashMap<>();
         if (ex.getCode() != null) details.put("stripe_code", ex.getCode());
         if (ex.getRequestId() != null) details.put("request_id", ex.getRequestId());
@@ -58,6 +85,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiError> handleValidation(MethodArgumentNotValidException ex) {
         Map<String, Object> fields = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(err -> fields.put(err.getField(), err.getDefaultMessage()));
+        count(ErrorCode.VALIDATION_ERROR);
         ApiError body = ApiError.builder()
                 .code(ErrorCode.VALIDATION_ERROR.name())
                 .message("Validation failed")
@@ -69,6 +97,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleOther(Exception ex) {
+        count(ErrorCode.INTERNAL_ERROR);
         ApiError body = ApiError.builder()
                 .code(ErrorCode.INTERNAL_ERROR.name())
                 .message(ex.getMessage())
@@ -76,4 +105,12 @@ public class GlobalExceptionHandler {
                 .build();
         return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-}
\ No newline at end of file
+
+    private void count(ErrorCode code) {
+        Counter.builder("app.errors")
+                .description("Error responses by ErrorCode")
+                .tag("code", code.name())
+                .register(meterRegistry)
+                .increment();
+    }
+}
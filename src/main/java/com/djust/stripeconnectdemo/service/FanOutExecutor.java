@@ -0,0 +1,145 @@
+package com.djust.stripeconnectdemo.service;
+
+import com.djust.stripeconnectdemo.stripe.StripeCallContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded-concurrency fan-out on virtual threads.
+ * - at most maxConcurrency calls are in flight at once (shared across all batches, protects Stripe rate limits)
+ * - each call gets perCallTimeout once it has a permit; a call that times out (or is abandoned at the deadline)
+ *   gives its permit back at once and its thread is interrupted, so a slow Stripe cannot starve later batches
+ * - a batch never waits past its deadline: unfinished calls are reported as failed outcomes
+ */
+public class FanOutExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final Duration perCallTimeout;
+    private final Duration deadline;
+
+    public FanOutExecutor(int maxConcurrency, Duration perCallTimeout, Duration deadline) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("maxConcurrency must be > 0");
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.perCallTimeout = perCallTimeout;
+        this.deadline = deadline;
+    }
+
+    /** Starts a new batch whose global deadline begins now. */
+    public Batch batch() {
+        return new Batch(System.nanoTime() + deadline.toNanos());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Result of a single call: either a value or an error message (and its cause, a TimeoutException past the deadline). */
+    public record Outcome<V>(V value, String error, Throwable cause) {
+        public boolean ok() { return error == null; }
+    }
+
+    /** Handle on a submitted call; read it after {@link Batch#await()}. */
+    public static final class Call<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /** Already-resolved call, e.g. a value served from a local cache. */
+        public static <V> Call<V> completed(V value) {
+            Call<V> call = new Call<>();
+            call.future.complete(value);
+            return call;
+        }
+
+        public Outcome<V> outcome() {
+            if (!future.isDone()) {
+                future.cancel(true);
+                return new Outcome<>(null, "deadline exceeded", new TimeoutException("deadline exceeded"));
+            }
+            try {
+                return new Outcome<>(future.getNow(null), null, null);
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                return new Outcome<>(null, describe(cause), cause);
+            }
+        }
+    }
+
+    public final class Batch {
+        private final long deadlineNanos;
+        private final List<Call<?>> calls = new ArrayList<>();
+
+        private Batch(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public <V> Call<V> submit(Callable<V> task) {
+            Call<V> call = new Call<>();
+            calls.add(call);
+            Callable<V> counted = StripeCallContext.wrap(task);
+            executor.execute(() -> run(counted, call.future));
+            return call;
+        }
+
+        /** Waits until every call finished or the batch deadline passed, whichever comes first. */
+        public void await() {
+            CompletableFuture<?>[] all = calls.stream().map(c -> c.future).toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.allOf(all).get(remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException ignored) {
+                // partial results: per-call outcomes carry the failures
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private <V> void run(Callable<V> task, CompletableFuture<V> future) {
+            AtomicBoolean held = new AtomicBoolean();
+            try {
+                if (!permits.tryAcquire(remainingNanos(), TimeUnit.NANOSECONDS)) {
+                    future.completeExceptionally(new TimeoutException("deadline exceeded before call started"));
+                    return;
+                }
+                held.set(true);
+                if (future.isDone()) return; // cancelled while queued
+                Thread worker = Thread.currentThread();
+                future.orTimeout(perCallTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                future.whenComplete((v, e) -> {
+                    // Timed out or cancelled: the permit is free now, and the blocked call is told to stop
+                    if (held.compareAndSet(true, false)) permits.release();
+                    if (e != null && Thread.currentThread() != worker) worker.interrupt();
+                });
+                future.complete(task.call());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                if (held.compareAndSet(true, false)) permits.release();
+            }
+        }
+
+        private long remainingNanos() {
+            return Math.max(0L, deadlineNanos - System.nanoTime());
+        }
+    }
+
+    private static String describe(Throwable t) {
+        if (t instanceof TimeoutException) return t.getMessage() != null ? t.getMessage() : "call timed out";
+        return t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,70 @@
+package com.djust.stripeconnectdemo.service.account;
+
+import com.djust.stripeconnectdemo.service.cache.BoundedTtlCache;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.AccountLink;
+import com.stripe.param.AccountLinkCreateParams;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Account Links (hosted onboarding URLs) per account and link type.
+ * - a link is handed out again for reuseWindow only (capped at expiryMargin before its expires_at): enough to absorb
+ *   double clicks and bursts, short enough that a link opened then abandoned is not served once Stripe consumed it
+ * - concurrent requests for the same account share one Stripe creation
+ * - a link is single-use: /return and /refresh (where Stripe sends the seller after visiting it) drop it from the cache
+ */
+public class AccountLinkService {
+
+    private final StripeClient stripe;
+    private final String rootUrl;
+    private final Duration reuseWindow;
+    private final Duration expiryMargin;
+    private final BoundedTtlCache<String, Link> cache;
+
+    private record Link(String url, long expiresAt) { }
+
+    public AccountLinkService(StripeClient stripe, String rootUrl, int maxEntries, Duration reuseWindow, Duration expiryMargin, CacheMetrics metrics) {
+        this.stripe = stripe;
+        this.rootUrl = rootUrl;
+        this.reuseWindow = reuseWindow;
+        this.expiryMargin = expiryMargin;
+        this.cache = new BoundedTtlCache<>(maxEntries, metrics);
+    }
+
+    public String onboardingUrl(String accountId) throws StripeException {
+        return url(accountId, AccountLinkCreateParams.Type.ACCOUNT_ONBOARDING);
+    }
+
+    public String url(String accountId, AccountLinkCreateParams.Type type) throws StripeException {
+        Link link = cache.getOrLoad(key(accountId, type), () -> {
+            AccountLinkCreateParams params = AccountLinkCreateParams.builder()
+                    .setAccount(accountId)
+                    .setRefreshUrl(rootUrl + "/refresh?account=" + accountId)
+                    .setReturnUrl(rootUrl + "/return?account=" + accountId)
+                    .setType(type)
+                    .build();
+            AccountLink created = stripe.accountLinks().create(params);
+            return new Link(created.getUrl(), created.getExpiresAt() == null ? 0 : created.getExpiresAt());
+        }, l -> ttl(l.expiresAt()));
+        return link.url();
+    }
+
+    /** Forgets every cached link of the account, e.g. once the seller has used one. */
+    public void invalidate(String accountId) {
+        for (AccountLinkCreateParams.Type type : AccountLinkCreateParams.Type.values()) cache.invalidate(key(accountId, type));
+    }
+
+    private Duration ttl(long expiresAtEpochSecond) {
+        Duration left = Duration.between(Instant.now(), Instant.ofEpochSecond(expiresAtEpochSecond)).minus(expiryMargin);
+        if (left.isNegative()) return Duration.ZERO;
+        return left.compareTo(reuseWindow) < 0 ? left : reuseWindow;
+    }
+
+    private static String key(String accountId, AccountLinkCreateParams.Type type) {
+        return accountId + "|" + type.getValue();
+    }
+}
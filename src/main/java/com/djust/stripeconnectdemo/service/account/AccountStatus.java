@@ -0,0 +1,40 @@
+package com.djust.stripeconnectdemo.service.account;
+
+import com.stripe.model.Account;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Local snapshot of the account fields the app relies on.
+ * - asOf: Stripe-side time (epoch seconds) of the data, used to drop out-of-order events
+ * - refreshedAt: when this node last confirmed the snapshot (webhook or live read)
+ */
+public record AccountStatus(String accountId,
+                            boolean chargesEnabled,
+                            boolean payoutsEnabled,
+                            List<String> requirementsDue,
+                            String transfersCapability,
+                            long asOf,
+                            Instant refreshedAt) {
+
+    public static AccountStatus from(Account a, long asOf) {
+        return new AccountStatus(
+                a.getId(),
+                Boolean.TRUE.equals(a.getChargesEnabled()),
+                Boolean.TRUE.equals(a.getPayoutsEnabled()),
+                a.getRequirements() != null && a.getRequirements().getCurrentlyDue() != null
+                        ? List.copyOf(a.getRequirements().getCurrentlyDue()) : List.of(),
+                a.getCapabilities() != null ? a.getCapabilities().getTransfers() : null,
+                asOf,
+                Instant.now());
+    }
+
+    public boolean transfersActive() {
+        return "active".equalsIgnoreCase(transfersCapability);
+    }
+
+    public AccountStatus withTransfersCapability(String status, long asOf) {
+        return new AccountStatus(accountId, chargesEnabled, payoutsEnabled, requirementsDue, status, asOf, Instant.now());
+    }
+}
@@ -0,0 +1,63 @@
+package com.djust.stripeconnectdemo.service.account;
+
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.stripe.model.Account;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Account status snapshots fed by Stripe webhooks (account.updated, capability.updated)
+ * and by any live Account read the app already makes.
+ * Readers only go back to Stripe when a snapshot is missing or older than maxAge.
+ */
+public class AccountStatusCache {
+
+    private final ConcurrentHashMap<String, AccountStatus> statuses = new ConcurrentHashMap<>();
+    private final Duration maxAge;
+    private final CacheMetrics metrics;
+
+    public AccountStatusCache(Duration maxAge, CacheMetrics metrics) {
+        this.maxAge = maxAge;
+        this.metrics = metrics;
+    }
+
+    /** Snapshot if present and refreshed within maxAge, otherwise null. */
+    public AccountStatus getFresh(String accountId) {
+        AccountStatus s = statuses.get(accountId);
+        if (s == null || s.refreshedAt().plus(maxAge).isBefore(Instant.now())) {
+            metrics.miss();
+            return null;
+        }
+        metrics.hit();
+        return s;
+    }
+
+    /** Snapshot however old, e.g. to show while Stripe is unavailable; null when never seen. */
+    public AccountStatus lastKnown(String accountId) {
+        return statuses.get(accountId);
+    }
+
+    /** Records a live read (asOf = now). */
+    public AccountStatus update(Account account) {
+        return update(account, Instant.now().getEpochSecond());
+    }
+
+    /** Records account data observed at {@code asOf}; older data than what we hold is ignored. */
+    public AccountStatus update(Account account, long asOf) {
+        AccountStatus incoming = AccountStatus.from(account, asOf);
+        return statuses.merge(account.getId(), incoming, (cur, inc) -> inc.asOf() >= cur.asOf() ? inc : cur);
+    }
+
+    /** Applies a capability.updated event; only the transfers capability is tracked. */
+    public void updateCapability(String accountId, String capability, String status, long asOf) {
+        if (!"transfers".equals(capability)) return;
+        // No snapshot yet: the next reader fetches the full account anyway
+        statuses.computeIfPresent(accountId, (id, cur) -> asOf >= cur.asOf() ? cur.withTransfersCapability(status, asOf) : cur);
+    }
+
+    public void evict(String accountId) {
+        statuses.remove(accountId);
+    }
+}
@@ -0,0 +1,211 @@
+package com.djust.stripeconnectdemo.service.account;
+
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Account;
+import com.stripe.model.StripeCollection;
+import com.stripe.param.AccountListParams;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the platform's existing connected accounts from Stripe into the registry.
+ * - walks GET /v1/accounts 100 at a time; the next page is fetched while the current one is processed
+ * - each page is registered in bulk (AccountRegistry.registerAll) and seeds the account status cache
+ * - full run: every account; incremental run: only accounts created since the newest one seen (created >= cursor)
+ * - the cursor advances only after a complete run, and is kept in a file when the registry is durable
+ * Removed accounts are not detected here: account.application.deauthorized webhooks handle them.
+ */
+@Slf4j
+public class AccountSync implements AutoCloseable {
+
+    private static final long PAGE_SIZE = 100;
+
+    /** Progress of the current or last run. */
+    public record Progress(String state, String mode, long pages, long accounts, long added,
+                           String started_at, String finished_at, Long cursor, String error) { }
+
+    private record Page(List<Account> accounts, Exception error, boolean last) { }
+
+    private final StripeClient stripe;
+    private final AccountRegistry registry;
+    private final AccountStatusCache statusCache;
+    private final Path cursorFile;
+    private final int prefetchPages;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final String tenant;
+
+    private volatile Long cursor;
+    private volatile String state = "idle";
+    private volatile String mode;
+    private volatile long pages;
+    private volatile long accounts;
+    private volatile long added;
+    private volatile long totalAdded;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    /** {@code cursorFile} may be null: the cursor then lives in memory only and the first run is a full one. */
+    public AccountSync(StripeClient stripe, AccountRegistry registry, AccountStatusCache statusCache, Path cursorFile,
+                       int prefetchPages, String tenant) throws IOException {
+        this.stripe = stripe;
+        this.registry = registry;
+        this.statusCache = statusCache;
+        this.cursorFile = cursorFile;
+        this.prefetchPages = prefetchPages;
+        this.tenant = tenant;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("account-sync-" + tenant).daemon().factory());
+        if (cursorFile != null && Files.exists(cursorFile)) {
+            this.cursor = Long.parseLong(Files.readString(cursorFile, StandardCharsets.UTF_8).strip());
+        }
+    }
+
+    /** Incremental runs every {@code interval} (after a first run right away when {@code now}). */
+    public void start(boolean now, Duration interval) {
+        if (now) trigger(false);
+        if (!interval.isZero()) {
+            scheduler.scheduleWithFixedDelay(() -> run(false), interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Starts a run in the background unless one is already going; returns false in that case. */
+    public boolean trigger(boolean full) {
+        if (running.get()) return false;
+        scheduler.execute(() -> run(full));
+        return true;
+    }
+
+    public Progress progress() {
+        return new Progress(state, mode, pages, accounts, added,
+                startedAt == null ? null : startedAt.toString(),
+                finishedAt == null ? null : finishedAt.toString(),
+                cursor, error);
+    }
+
+    public boolean running() {
+        return running.get();
+    }
+
+    /** Accounts added to the registry by all runs since startup. */
+    public long totalAdded() {
+        return totalAdded;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void run(boolean full) {
+        if (!running.compareAndSet(false, true)) return;
+        Long since = full ? null : cursor;
+        state = "running";
+        mode = since == null ? "full" : "incremental";
+        pages = 0;
+        accounts = 0;
+        added = 0;
+        error = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        BlockingQueue<Page> queue = new ArrayBlockingQueue<>(prefetchPages);
+        Thread fetcher = Thread.ofVirtual().name("account-sync-fetch-" + tenant).start(() -> fetch(since, queue));
+        try {
+            long newest = since == null ? 0 : since;
+            while (true) {
+                Page page = queue.take();
+                if (page.error() != null) throw page.error();
+                newest = Math.max(newest, process(page.accounts()));
+                if (page.last()) break;
+            }
+            if (newest > 0) saveCursor(newest);
+            state = "done";
+            log.info("Account sync ({}) of tenant {}: {} accounts in {} pages, {} added", mode, tenant, accounts, pages, added);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = "failed";
+            error = "interrupted";
+        } catch (Exception e) {
+            state = "failed";
+            error = e.getMessage();
+            log.warn("Account sync ({}) of tenant {} failed after {} pages: {}", mode, tenant, pages, e.getMessage());
+        } finally {
+            fetcher.interrupt();
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    /** Producer: pages newest first, handed over through a small bounded queue. */
+    private void fetch(Long since, BlockingQueue<Page> queue) {
+        try {
+            String after = null;
+            while (true) {
+                AccountListParams.Builder params = AccountListParams.builder().setLimit(PAGE_SIZE);
+                // gte, not gt: accounts created in the same second as the cursor are re-read and skipped by the registry
+                if (since != null) params.setCreated(AccountListParams.Created.builder().setGte(since).build());
+                if (after != null) params.setStartingAfter(after);
+                StripeCollection<Account> page = stripe.accounts().list(params.build());
+                List<Account> data = page.getData();
+                boolean last = !Boolean.TRUE.equals(page.getHasMore()) || data.isEmpty();
+                queue.put(new Page(data, null, last));
+                if (last) return;
+                after = data.get(data.size() - 1).getId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (StripeException | RuntimeException e) {
+            try {
+                queue.put(new Page(List.of(), e, true));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Registers one page and seeds the status cache; returns the newest creation time in it. */
+    private long process(List<Account> page) {
+        String djustId = registry.getDjustAccountId();
+        List<String> ids = new ArrayList<>(page.size());
+        long newest = 0;
+        for (Account a : page) {
+            if (a.getCreated() != null) newest = Math.max(newest, a.getCreated());
+            // The Djust account is a connected account too, but never a seller
+            if (a.getId().equals(djustId)) continue;
+            ids.add(a.getId());
+            statusCache.update(a);
+        }
+        int n = registry.registerAll(ids);
+        pages++;
+        accounts += page.size();
+        added += n;
+        totalAdded += n;
+        return newest;
+    }
+
+    private void saveCursor(long newest) throws IOException {
+        cursor = newest;
+        if (cursorFile == null) return;
+        if (cursorFile.getParent() != null) Files.createDirectories(cursorFile.getParent());
+        Path tmp = cursorFile.resolveSibling(cursorFile.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(newest), StandardCharsets.UTF_8);
+        Files.move(tmp, cursorFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
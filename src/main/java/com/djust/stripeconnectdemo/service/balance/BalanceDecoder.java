@@ -0,0 +1,36 @@
+package com.djust.stripeconnectdemo.service.balance;
+
+import com.stripe.model.Balance;
+
+import java.util.List;
+
+/**
+ * Typed decoding of {@link Balance} funds into {@link CurrencyAmounts}.
+ * Uses Balance.Available / Balance.Pending getters directly (no reflection, no swallowed exceptions).
+ */
+public final class BalanceDecoder {
+
+    private BalanceDecoder() { }
+
+    public static CurrencyAmounts available(List<Balance.Available> funds) {
+        if (funds == null || funds.isEmpty()) return CurrencyAmounts.EMPTY;
+        CurrencyAmounts.Builder out = CurrencyAmounts.builder(funds.size());
+        for (int i = 0, n = funds.size(); i < n; i++) {
+            Balance.Available f = funds.get(i);
+            if (f == null || f.getAmount() == null) continue;
+            out.put(f.getCurrency(), f.getAmount());
+        }
+        return out.build();
+    }
+
+    public static CurrencyAmounts pending(List<Balance.Pending> funds) {
+        if (funds == null || funds.isEmpty()) return CurrencyAmounts.EMPTY;
+        CurrencyAmounts.Builder out = CurrencyAmounts.builder(funds.size());
+        for (int i = 0, n = funds.size(); i < n; i++) {
+            Balance.Pending f = funds.get(i);
+            if (f == null || f.getAmount() == null) continue;
+            out.put(f.getCurrency(), f.getAmount());
+        }
+        return out.build();
+    }
+}
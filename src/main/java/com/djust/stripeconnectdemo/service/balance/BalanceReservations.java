@@ -0,0 +1,201 @@
+package com.djust.stripeconnectdemo.service.balance;
+
+import com.djust.stripeconnectdemo.stripe.CircuitOpenException;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.StripeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local reservations against the platform's available balance, so concurrent transfers cannot over-commit it.
+ * - per currency: available amount at the last balance read (minus transfers committed since) and the amount reserved
+ * - reserve/commit/release are compare-and-set on an immutable per-currency record: no locks on the transfer path
+ * - a transfer is admitted or rejected locally; the balance is only read again when the seed is older than recheckAfter
+ *   (at most one read for all callers), and every reconcileInterval once the currency is in use
+ * - transfers committed while a balance read is in flight are subtracted from it: the estimate can only be too low
+ */
+@Slf4j
+public class BalanceReservations implements AutoCloseable {
+
+    private record Funds(long seeded, long reserved, long committed) {
+
+        long headroom() {
+            return seeded - reserved;
+        }
+    }
+
+    /** An admitted amount: commit once Stripe accepted the transfer, or report the failure. */
+    public final class Reservation {
+
+        private final AtomicReference<Funds> funds;
+        private final long amount;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Reservation(AtomicReference<Funds> funds, long amount) {
+            this.funds = funds;
+            this.amount = amount;
+        }
+
+        public void commit() {
+            if (done.compareAndSet(false, true)) {
+                funds.updateAndGet(f -> new Funds(f.seeded() - amount, f.reserved() - amount, f.committed() + amount));
+            }
+        }
+
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                funds.updateAndGet(f -> new Funds(f.seeded(), f.reserved() - amount, f.committed()));
+            }
+        }
+
+        /**
+         * Transfer failed: the amount is released when Stripe certainly did not move it, kept otherwise
+         * (connection error, 5xx) until the next balance read tells.
+         */
+        public void failed(Exception e) {
+            if (e instanceof CircuitOpenException) {
+                release(); // never sent
+                return;
+            }
+            if (e instanceof ApiConnectionException || e instanceof ApiException) {
+                commit();
+                reconcileSoon();
+                return;
+            }
+            release();
+            if (e instanceof StripeException se && "balance_insufficient".equals(se.getCode())) reconcileSoon();
+        }
+    }
+
+    private final BalanceService balance;
+    private final Duration recheckAfter;
+    private final ConcurrentHashMap<String, AtomicReference<Funds>> funds = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final ScheduledExecutorService scheduler;
+    private final Object reading = new Object();
+    private volatile long lastReadStart;
+    private volatile boolean seeded;
+
+    public BalanceReservations(BalanceService balance, Duration recheckAfter, String tenant) {
+        this.balance = balance;
+        this.recheckAfter = recheckAfter;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("balance-reservations-" + tenant).daemon().factory());
+    }
+
+    /** Periodic re-seeding, only once a transfer has used the reservations. */
+    public void start(Duration interval) {
+        if (interval.isZero() || interval.isNegative()) return;
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (seeded) reconcileQuietly();
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /** Reserves {@code amount}, or null when the available balance (re-read at most once) does not cover it. */
+    public Reservation tryReserve(String currency, long amount) throws StripeException {
+        long asked = System.nanoTime();
+        if (!seeded) reconcile(asked);
+        String key = currency.toLowerCase(Locale.ROOT);
+        boolean ok = reserve(funds.get(key), amount);
+        if (!ok && asked - lastReadStart >= recheckAfter.toNanos()) {
+            // Incoming payments may have become available since the last read
+            reconcile(asked);
+            ok = reserve(funds.get(key), amount);
+        }
+        if (!ok) {
+            rejected.increment();
+            return null;
+        }
+        admitted.increment();
+        return new Reservation(funds.get(key), amount);
+    }
+
+    /** Currencies absent from the balance have no entry: nothing to reserve. */
+    private static boolean reserve(AtomicReference<Funds> ref, long amount) {
+        if (ref == null) return false;
+        while (true) {
+            Funds f = ref.get();
+            if (f.headroom() < amount) return false;
+            if (ref.compareAndSet(f, new Funds(f.seeded(), f.reserved() + amount, f.committed()))) return true;
+        }
+    }
+
+    /** Amount that can still be reserved in a currency (as of the last balance read). */
+    public long available(String currency) {
+        AtomicReference<Funds> ref = funds.get(currency.toLowerCase(Locale.ROOT));
+        return ref == null ? 0 : Math.max(0, ref.get().headroom());
+    }
+
+    /** Reserved amounts not yet committed or released, by currency. */
+    public Map<String, Long> reserved() {
+        Map<String, Long> out = new HashMap<>();
+        funds.forEach((currency, ref) -> {
+            long r = ref.get().reserved();
+            if (r != 0) out.put(currency, r);
+        });
+        return out;
+    }
+
+    public long admitted() { return admitted.sum(); }
+
+    public long rejected() { return rejected.sum(); }
+
+    /** Re-seeds every currency from a new balance read. */
+    public void reconcile() throws StripeException {
+        reconcile(System.nanoTime());
+    }
+
+    /** A read that started after {@code asked} already reflects everything the caller waits for: it is not repeated. */
+    private void reconcile(long asked) throws StripeException {
+        synchronized (reading) {
+            if (seeded && lastReadStart - asked >= 0) return;
+            Map<String, Long> committedBefore = new HashMap<>();
+            funds.forEach((currency, ref) -> committedBefore.put(currency, ref.get().committed()));
+            long start = System.nanoTime();
+            CurrencyAmounts available = balance.retrieveNow().available();
+            for (int i = 0; i < available.size(); i++) {
+                funds.computeIfAbsent(available.currencyAt(i), c -> new AtomicReference<>(new Funds(0, 0, 0)));
+            }
+            funds.forEach((currency, ref) -> {
+                long amount = available.amount(currency);
+                long before = committedBefore.getOrDefault(currency, 0L);
+                ref.updateAndGet(f -> new Funds(amount - (f.committed() - before), f.reserved(), f.committed()));
+            });
+            lastReadStart = start;
+            seeded = true;
+        }
+    }
+
+    private void reconcileSoon() {
+        try {
+            scheduler.execute(this::reconcileQuietly);
+        } catch (RuntimeException e) {
+            // closed: nothing left to reconcile
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Balance reconciliation failed: {}", e.getMessage());
+        }
+    }
+}
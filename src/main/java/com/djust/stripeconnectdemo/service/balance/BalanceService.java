@@ -0,0 +1,135 @@
+package com.djust.stripeconnectdemo.service.balance;
+
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.djust.stripeconnectdemo.stripe.StripeOutage;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Balance;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared view of the platform balance.
+ * - one Stripe retrieve per TTL window, available and pending decoded together
+ * - concurrent callers share a single in-flight retrieve (single-flight)
+ * - the last successful read outlives invalidation and is served, marked stale, while Stripe is unavailable
+ * - callers that move money (transfers) force a new read (get(true), retrieveNow), never joined to one in flight
+ * - a read started before invalidate() or before a newer read never becomes the cached value
+ */
+public class BalanceService {
+
+    private final StripeClient stripe;
+    private final Duration ttl;
+    private final CacheMetrics metrics;
+    private final AtomicReference<CompletableFuture<BalanceSnapshot>> inFlight = new AtomicReference<>();
+    private volatile BalanceSnapshot cached;
+    private volatile BalanceSnapshot lastGood; // kept across invalidate(), for outages
+    private long storedFrom = Long.MIN_VALUE; // guarded by this: reads started before this are not cached
+
+    public BalanceService(StripeClient stripe, Duration ttl, CacheMetrics metrics) {
+        this.stripe = stripe;
+        this.ttl = ttl;
+        this.metrics = metrics;
+    }
+
+    /** Cached balance if still within TTL, otherwise a fresh (coalesced) read. */
+    public BalanceSnapshot get() throws StripeException {
+        return get(false);
+    }
+
+    /** {@code forceRefresh}: a new read (see retrieveNow), for callers that must see their own transfers. */
+    public BalanceSnapshot get(boolean forceRefresh) throws StripeException {
+        if (forceRefresh) return retrieveNow();
+        BalanceSnapshot current = cached;
+        if (current != null && current.fetchedAt().plus(ttl).isAfter(Instant.now())) {
+            metrics.hit();
+            return current;
+        }
+        metrics.miss();
+        return refresh();
+    }
+
+    /**
+     * New retrieve, never joined to one already in flight (that read may predate the caller's last transfer).
+     * The result becomes the cached value.
+     */
+    public BalanceSnapshot retrieveNow() throws StripeException {
+        metrics.miss();
+        long started = System.nanoTime();
+        BalanceSnapshot snapshot = decode(stripe.balance().retrieve());
+        store(snapshot, started);
+        return snapshot;
+    }
+
+    /** get(), or while Stripe is unavailable (errors, open circuit) the last successful read marked stale, if any. */
+    public BalanceSnapshot getOrStale() throws StripeException {
+        try {
+            return get();
+        } catch (StripeException e) {
+            BalanceSnapshot last = lastGood;
+            if (last == null || !StripeOutage.isOutage(e)) throw e;
+            return last.asStale();
+        }
+    }
+
+    /** Last successful read, however old (null before the first one). */
+    public BalanceSnapshot lastKnown() {
+        return lastGood;
+    }
+
+    /** Drops the cached value, e.g. after a transfer changed the balance. */
+    public synchronized void invalidate() {
+        cached = null;
+        storedFrom = System.nanoTime();
+    }
+
+    private BalanceSnapshot refresh() throws StripeException {
+        CompletableFuture<BalanceSnapshot> mine = new CompletableFuture<>();
+        CompletableFuture<BalanceSnapshot> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            // TTL reads only: any read in flight is recent enough (forced reads never get here)
+            return await(running);
+        }
+        try {
+            long started = System.nanoTime();
+            BalanceSnapshot snapshot = decode(stripe.balance().retrieve());
+            store(snapshot, started);
+            mine.complete(snapshot);
+            return snapshot;
+        } catch (StripeException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    /** A read finishing late must not replace a newer one, nor refill the cache with a balance from before invalidate(). */
+    private synchronized void store(BalanceSnapshot snapshot, long started) {
+        if (started - storedFrom < 0 && storedFrom != Long.MIN_VALUE) return;
+        storedFrom = started;
+        cached = snapshot;
+        lastGood = snapshot;
+    }
+
+    private static BalanceSnapshot await(CompletableFuture<BalanceSnapshot> running) throws StripeException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for balance", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof StripeException se) throw se;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static BalanceSnapshot decode(Balance b) {
+        return new BalanceSnapshot(b, BalanceDecoder.available(b.getAvailable()), BalanceDecoder.pending(b.getPending()), Instant.now(), false);
+    }
+}
@@ -0,0 +1,22 @@
+package com.djust.stripeconnectdemo.service.balance;
+
+import com.stripe.model.Balance;
+
+import java.time.Instant;
+
+/**
+ * Platform balance as read from Stripe at {@code fetchedAt}.
+ * - balance: raw Stripe object (for /api/balance)
+ * - available / pending: amount per currency, decoded once
+ * - stale: last known balance, served because Stripe is unavailable
+ */
+public record BalanceSnapshot(Balance balance, CurrencyAmounts available, CurrencyAmounts pending, Instant fetchedAt, boolean stale) {
+
+    public BalanceSnapshot asStale() {
+        return new BalanceSnapshot(balance, available, pending, fetchedAt, true);
+    }
+
+    public long availableIn(String currency) {
+        return available.amount(currency);
+    }
+}
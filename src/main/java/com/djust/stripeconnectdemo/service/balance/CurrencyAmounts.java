@@ -0,0 +1,123 @@
+package com.djust.stripeconnectdemo.service.balance;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable currency -> amount map keyed by packed ISO 4217 codes.
+ * - keys are the three lower-case letters packed into an int, values are primitive longs
+ * - lookups neither allocate nor box; insertion order is kept for JSON output
+ */
+public final class CurrencyAmounts {
+
+    public static final CurrencyAmounts EMPTY = new CurrencyAmounts(new int[0], new long[0], 0);
+
+    private final int[] keys;
+    private final long[] amounts;
+    private final int size;
+    private Map<String, Long> json; // lazily built view, benign race (immutable content)
+
+    private CurrencyAmounts(int[] keys, long[] amounts, int size) {
+        this.keys = keys;
+        this.amounts = amounts;
+        this.size = size;
+    }
+
+    /** Amount for a currency (case-insensitive), 0 when absent or not a 3-letter code. */
+    public long amount(String currency) {
+        int key = pack(currency);
+        if (key < 0) return 0L;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) return amounts[i];
+        }
+        return 0L;
+    }
+
+    public boolean contains(String currency) {
+        int key = pack(currency);
+        for (int i = 0; key >= 0 && i < size; i++) {
+            if (keys[i] == key) return true;
+        }
+        return false;
+    }
+
+    public int size() { return size; }
+
+    public String currencyAt(int index) { return unpack(keys[index]); }
+
+    public long amountAt(int index) { return amounts[index]; }
+
+    /** JSON shape kept identical to the former LinkedHashMap: { "eur": 1234, ... }. */
+    @JsonValue
+    public Map<String, Long> asMap() {
+        Map<String, Long> m = json;
+        if (m == null) {
+            Map<String, Long> out = new LinkedHashMap<>(size * 2);
+            for (int i = 0; i < size; i++) out.put(unpack(keys[i]), amounts[i]);
+            m = Collections.unmodifiableMap(out);
+            json = m;
+        }
+        return m;
+    }
+
+    @Override
+    public String toString() { return asMap().toString(); }
+
+    /** Packs a 3-letter code into an int (lower-cased), or -1 if it is not one. */
+    static int pack(String currency) {
+        if (currency == null || currency.length() != 3) return -1;
+        int key = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = currency.charAt(i);
+            if ((c | 0x20) < 'a' || (c | 0x20) > 'z') return -1;
+            key = (key << 8) | (c | 0x20);
+        }
+        return key;
+    }
+
+    static String unpack(int key) {
+        return new String(new char[]{(char) ((key >> 16) & 0xff), (char) ((key >> 8) & 0xff), (char) (key & 0xff)});
+    }
+
+    public static Builder builder(int expected) {
+        return new Builder(expected);
+    }
+
+    public static final class Builder {
+        private int[] keys;
+        private long[] amounts;
+        private int size;
+
+        private Builder(int expected) {
+            int cap = Math.max(expected, 1);
+            this.keys = new int[cap];
+            this.amounts = new long[cap];
+        }
+
+        /** Sets (or overwrites) the amount of a currency; codes that are not 3 letters are ignored. */
+        public Builder put(String currency, long amount) {
+            int key = pack(currency);
+            if (key < 0) return this;
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) { amounts[i] = amount; return this; }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            keys[size] = key;
+            amounts[size] = amount;
+            size++;
+            return this;
+        }
+
+        public CurrencyAmounts build() {
+            if (size == 0) return EMPTY;
+            return new CurrencyAmounts(keys, amounts, size);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.djust.stripeconnectdemo.service.breaker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker of one family of Stripe calls (accounts, balance, paymentIntents, transfers...).
+ * - CLOSED: calls go through; the last {@code window} outcomes are kept, and the circuit opens once at least
+ *   minimumCalls were seen and the failure share reaches failureRateThreshold
+ * - OPEN: calls are refused without touching Stripe until openDuration has passed
+ * - HALF_OPEN: up to halfOpenProbes calls are let through; all succeeding closes the circuit, one failing reopens it
+ * Results of calls admitted in an earlier state are ignored, so a slow straggler cannot flip a fresh decision:
+ * each permit carries the generation it was issued in, bumped on every open and close.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** How a call was admitted; pass it back to {@link #onResult}. */
+    public record Permit(boolean probe, long generation) { }
+
+    public record Status(String family, State state, int calls, int failures, long retry_after_seconds, long rejected) { }
+
+    private final String family;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongAdder rejected = new LongAdder();
+
+    // guarded by this
+    private final boolean[] failed;
+    private int next;
+    private int calls;
+    private int failures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(String family, int window, int minimumCalls, double failureRateThreshold, Duration openDuration, int halfOpenProbes) {
+        if (window <= 0) throw new IllegalArgumentException("window must be > 0");
+        this.family = family;
+        this.failed = new boolean[window];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /** Admits a call, or returns null when it must fail fast. */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejected.increment();
+                return null;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.CLOSED) return new Permit(false, generation);
+        if (probesInFlight >= halfOpenProbes) {
+            rejected.increment();
+            return null;
+        }
+        probesInFlight++;
+        return new Permit(true, generation);
+    }
+
+    public synchronized void onResult(Permit permit, boolean success) {
+        if (permit.generation() != generation) return; // admitted before the last open or close
+        if (permit.probe()) {
+            probesInFlight--;
+            if (!success) open();
+            else if (++probeSuccesses >= halfOpenProbes) close();
+            return;
+        }
+        if (calls == failed.length) {
+            if (failed[next]) failures--;
+        } else {
+            calls++;
+        }
+        failed[next] = !success;
+        if (!success) failures++;
+        next = (next + 1) % failed.length;
+        if (calls >= minimumCalls && failures >= failureRateThreshold * calls) open();
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) return State.HALF_OPEN; // on the next call
+        return state;
+    }
+
+    /** Seconds until the open circuit lets a probe through (0 when not open). */
+    public synchronized long retryAfterSeconds() {
+        if (state != State.OPEN) return 0;
+        long left = openNanos - (System.nanoTime() - openedAt);
+        return left <= 0 ? 0 : Math.max(1, Duration.ofNanos(left).toSeconds());
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public String family() {
+        return family;
+    }
+
+    public synchronized Status status() {
+        return new Status(family, state(), calls, failures, retryAfterSeconds(), rejected());
+    }
+
+    private void open() {
+        generation++;
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        generation++;
+        state = State.CLOSED;
+        calls = 0;
+        failures = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.djust.stripeconnectdemo.service.breaker;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Circuit breakers of one tenant, one per Stripe operation family, created on first use.
+ * A failing family (e.g. transfers) does not cut off the others (e.g. accounts).
+ */
+public class CircuitBreakers {
+
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Function<String, CircuitBreaker> factory;
+
+    public CircuitBreakers(Function<String, CircuitBreaker> factory) {
+        this.factory = factory;
+    }
+
+    public CircuitBreaker get(String family) {
+        return breakers.computeIfAbsent(family, factory);
+    }
+
+    /** True when the family's circuit is currently refusing calls. */
+    public boolean isOpen(String family) {
+        CircuitBreaker b = breakers.get(family);
+        return b != null && b.state() == CircuitBreaker.State.OPEN;
+    }
+
+    public List<CircuitBreaker.Status> status() {
+        return breakers.values().stream()
+                .map(CircuitBreaker::status)
+                .sorted(Comparator.comparing(CircuitBreaker.Status::family))
+                .toList();
+    }
+}
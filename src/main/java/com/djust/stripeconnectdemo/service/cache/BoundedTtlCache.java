@@ -0,0 +1,129 @@
+package com.djust.stripeconnectdemo.service.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Small bounded cache with per-entry TTL and single-flight loading.
+ * - least recently used entries are evicted beyond maxEntries; expired ones are no longer returned by get but kept
+ *   (getStale) until evicted or replaced
+ * - concurrent misses for the same key share one loader call
+ */
+public class BoundedTtlCache<K, V> {
+
+    /** Loader that may throw a checked exception (typically StripeException). */
+    @FunctionalInterface
+    public interface Loader<V, X extends Exception> {
+        V load() throws X;
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) { }
+
+    private final Map<K, Entry<V>> entries;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final CacheMetrics metrics;
+
+    public BoundedTtlCache(int maxEntries) {
+        this(maxEntries, CacheMetrics.NOOP);
+    }
+
+    public BoundedTtlCache(int maxEntries, CacheMetrics metrics) {
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Cached value, or null when absent or expired. */
+    public V get(K key) {
+        V value = lookup(key);
+        if (value != null) metrics.hit(); else metrics.miss();
+        return value;
+    }
+
+    private V lookup(K key) {
+        synchronized (entries) {
+            Entry<V> e = entries.get(key);
+            if (e == null || e.expiresAtNanos() - System.nanoTime() <= 0) return null;
+            return e.value();
+        }
+    }
+
+    /** Last value stored for the key, expired or not (e.g. to serve while its source is unavailable); null when evicted. */
+    public V getStale(K key) {
+        synchronized (entries) {
+            Entry<V> e = entries.get(key);
+            return e == null ? null : e.value();
+        }
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        long expiresAt = System.nanoTime() + ttl.toNanos();
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Cached value, or the result of {@code loader} cached for {@code ttlOf(value)}.
+     * Only one caller per key runs the loader; the others wait for its result (or its exception).
+     */
+    @SuppressWarnings("unchecked")
+    public <X extends Exception> V getOrLoad(K key, Loader<V, X> loader, Function<V, Duration> ttlOf) throws X {
+        V cached = get(key);
+        if (cached != null) return cached;
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + key, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw (X) e.getCause();
+            }
+        }
+        try {
+            // re-check: another loader may have finished between our miss and our registration
+            V value = lookup(key);
+            if (value == null) {
+                value = loader.load();
+                if (value != null) put(key, value, ttlOf.apply(value));
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw (X) e; // only the loader throws checked exceptions
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.djust.stripeconnectdemo.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hit/miss counters of one local cache: app.cache.requests{cache="balance", tenant="default", result="hit|miss"}.
+ * Hit ratio = hit / (hit + miss).
+ */
+public class CacheMetrics {
+
+    public static final CacheMetrics NOOP = new CacheMetrics(null, null);
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private CacheMetrics(Counter hits, Counter misses) {
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public static CacheMetrics of(MeterRegistry registry, String cache, String tenant) {
+        return new CacheMetrics(counter(registry, cache, tenant, "hit"), counter(registry, cache, tenant, "miss"));
+    }
+
+    public void hit() {
+        if (hits != null) hits.increment();
+    }
+
+    public void miss() {
+        if (misses != null) misses.increment();
+    }
+
+    private static Counter counter(MeterRegistry registry, String cache, String tenant, String result) {
+        return Counter.builder("app.cache.requests")
+                .description("Local cache lookups")
+                .tag("cache", cache)
+                .tag("tenant", tenant)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,131 @@
+package com.djust.stripeconnectdemo.service.fee;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application fees of one tenant, computed from a CSV fee schedule when the OMS omits application_fee_amount.
+ * - file: seller,currency,from_amount,percent,fixed,min,max (one band per line, '*' = any seller / currency,
+ *   empty min/max = no bound, '#' comments and a header line allowed)
+ * - the whole file is parsed into a new FeeTable and swapped in at once; a bad file keeps the previous table
+ * - reloaded when the file's mtime changes (polled) or on POST /fees/reload
+ */
+@Slf4j
+public class FeeEngine implements AutoCloseable {
+
+    private static final BigDecimal PPM_PER_PERCENT = BigDecimal.valueOf(10_000);
+
+    private final Path path;
+    private final ScheduledExecutorService scheduler;
+    private volatile FeeTable table = FeeTable.EMPTY;
+    private volatile FileTime loadedMtime;
+    private volatile Instant loadedAt;
+
+    public FeeEngine(Path path, String tenant) {
+        this.path = path;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("fee-schedule-" + tenant).daemon().factory());
+        if (Files.exists(path)) reload();
+    }
+
+    /** Fee in minor units for this payment, or {@link FeeTable#NO_FEE} when no schedule applies. Allocation-free. */
+    public long fee(String seller, String currency, long amount) {
+        return table.fee(seller, currency.toLowerCase(Locale.ROOT), amount);
+    }
+
+    /** Polls the file every {@code interval} and reloads it when modified. */
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(this::reloadIfModified, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Parses the file and swaps the table; throws VALIDATION_ERROR (previous table kept) when the file is invalid. */
+    public synchronized Map<String, Object> reload() {
+        try {
+            FileTime mtime = Files.getLastModifiedTime(path);
+            FeeTable next = FeeTable.of(parse(path));
+            table = next;
+            loadedMtime = mtime;
+            loadedAt = Instant.now();
+            log.info("Loaded {} fee schedules from {}", next.size(), path);
+            return status();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Cannot read fee schedule " + path + ": " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Invalid fee schedule " + path + ": " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("path", path.toString());
+        out.put("schedules", table.size());
+        out.put("loaded_at", loadedAt == null ? null : loadedAt.toString());
+        return out;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void reloadIfModified() {
+        try {
+            if (!Files.exists(path)) return;
+            if (Files.getLastModifiedTime(path).equals(loadedMtime)) return;
+            reload();
+        } catch (Exception e) {
+            log.warn("Fee schedule reload failed, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    static List<FeeSchedule> parse(Path path) throws IOException {
+        List<FeeSchedule> out = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int n = 0;
+            while ((line = in.readLine()) != null) {
+                n++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#") || (n == 1 && line.startsWith("seller"))) continue;
+                try {
+                    out.add(parseLine(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("line " + n + ": " + e.getMessage());
+                }
+            }
+        }
+        return out;
+    }
+
+    private static FeeSchedule parseLine(String line) {
+        String[] f = line.split(",", -1);
+        if (f.length != 7) throw new IllegalArgumentException("expected 7 fields, got " + f.length);
+        long ratePpm;
+        try {
+            ratePpm = new BigDecimal(f[3].strip()).multiply(PPM_PER_PERCENT).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("percent has more than 4 decimals: " + f[3].strip());
+        }
+        return new FeeSchedule(f[0].strip(), f[1].strip(), Long.parseLong(f[2].strip()), ratePpm, Long.parseLong(f[4].strip()),
+                f[5].isBlank() ? 0 : Long.parseLong(f[5].strip()),
+                f[6].isBlank() ? FeeSchedule.NO_MAX : Long.parseLong(f[6].strip()));
+    }
+}
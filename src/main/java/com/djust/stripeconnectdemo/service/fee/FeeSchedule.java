@@ -0,0 +1,22 @@
+package com.djust.stripeconnectdemo.service.fee;
+
+import java.util.Locale;
+
+/**
+ * One fee band: applies to payments of {@code seller} in {@code currency} from {@code fromAmount} (minor units, inclusive)
+ * up to the next band's fromAmount. {@link #ANY} matches every seller / currency.
+ * fee = fixed + amount * ratePpm / 1_000_000 (rounded half up), then clamped to [min, max] and to the amount.
+ */
+public record FeeSchedule(String seller, String currency, long fromAmount, long ratePpm, long fixed, long min, long max) {
+
+    public static final String ANY = "*";
+    public static final long NO_MAX = Long.MAX_VALUE;
+
+    public FeeSchedule {
+        if (seller == null || seller.isBlank()) throw new IllegalArgumentException("seller is required (or *)");
+        if (currency == null || currency.isBlank()) throw new IllegalArgumentException("currency is required (or *)");
+        if (fromAmount < 0 || ratePpm < 0 || fixed < 0 || min < 0) throw new IllegalArgumentException("amounts and rate must be >= 0");
+        if (max < min) throw new IllegalArgumentException("max must be >= min");
+        currency = currency.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,106 @@
+package com.djust.stripeconnectdemo.service.fee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable fee schedule index, rebuilt as a whole on reload.
+ * - seller -> currency -> bands sorted by fromAmount, stored as parallel long arrays
+ * - lookup: two HashMap reads and a binary search, no allocation
+ * - most specific match wins: (seller, currency), (seller, *), (*, currency), (*, *)
+ */
+public final class FeeTable {
+
+    public static final long NO_FEE = -1;
+    public static final FeeTable EMPTY = new FeeTable(Map.of(), 0);
+
+    private static final class Bands {
+        final long[] from;
+        final long[] ratePpm;
+        final long[] fixed;
+        final long[] min;
+        final long[] max;
+
+        Bands(List<FeeSchedule> sorted) {
+            int n = sorted.size();
+            from = new long[n];
+            ratePpm = new long[n];
+            fixed = new long[n];
+            min = new long[n];
+            max = new long[n];
+            for (int i = 0; i < n; i++) {
+                FeeSchedule s = sorted.get(i);
+                from[i] = s.fromAmount();
+                ratePpm[i] = s.ratePpm();
+                fixed[i] = s.fixed();
+                min[i] = s.min();
+                max[i] = s.max();
+            }
+        }
+
+        long fee(long amount) {
+            int i = Arrays.binarySearch(from, amount);
+            if (i < 0) i = -i - 2; // last band starting below amount
+            if (i < 0) return NO_FEE;
+            long fee = fixed[i] + (amount * ratePpm[i] + 500_000) / 1_000_000;
+            // Never above the payment itself: Stripe rejects application_fee_amount > amount
+            return Math.min(amount, Math.max(min[i], Math.min(max[i], fee)));
+        }
+    }
+
+    private final Map<String, Map<String, Bands>> sellers;
+    private final int size;
+
+    private FeeTable(Map<String, Map<String, Bands>> sellers, int size) {
+        this.sellers = sellers;
+        this.size = size;
+    }
+
+    /** Builds the index; two bands of the same seller/currency with the same fromAmount are rejected. */
+    public static FeeTable of(List<FeeSchedule> schedules) {
+        Map<String, Map<String, List<FeeSchedule>>> grouped = new HashMap<>();
+        for (FeeSchedule s : schedules) {
+            grouped.computeIfAbsent(s.seller(), k -> new HashMap<>()).computeIfAbsent(s.currency(), k -> new ArrayList<>()).add(s);
+        }
+        Map<String, Map<String, Bands>> sellers = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((seller, currencies) -> {
+            Map<String, Bands> byCurrency = new HashMap<>(currencies.size() * 2);
+            currencies.forEach((currency, bands) -> {
+                bands.sort(Comparator.comparingLong(FeeSchedule::fromAmount));
+                for (int i = 1; i < bands.size(); i++) {
+                    if (bands.get(i).fromAmount() == bands.get(i - 1).fromAmount()) {
+                        throw new IllegalArgumentException("Duplicate band " + seller + "/" + currency + " from " + bands.get(i).fromAmount());
+                    }
+                }
+                byCurrency.put(currency, new Bands(bands));
+            });
+            sellers.put(seller, byCurrency);
+        });
+        return new FeeTable(sellers, schedules.size());
+    }
+
+    /** Fee in minor units, or {@link #NO_FEE} when no schedule covers this payment. Currency must be lower case. */
+    public long fee(String seller, String currency, long amount) {
+        long fee = NO_FEE;
+        if (seller != null) fee = fee(sellers.get(seller), currency, amount);
+        if (fee == NO_FEE) fee = fee(sellers.get(FeeSchedule.ANY), currency, amount);
+        return fee;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static long fee(Map<String, Bands> byCurrency, String currency, long amount) {
+        if (byCurrency == null) return NO_FEE;
+        Bands bands = byCurrency.get(currency);
+        long fee = bands == null ? NO_FEE : bands.fee(amount);
+        if (fee != NO_FEE) return fee;
+        bands = byCurrency.get(FeeSchedule.ANY);
+        return bands == null ? NO_FEE : bands.fee(amount);
+    }
+}
@@ -0,0 +1,135 @@
+package com.djust.stripeconnectdemo.service.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of opaque records, replayed at startup (payment outbox, earnings ledger).
+ * - record: [length:4][crc32c:4][bytes]; a torn or corrupt tail fails the check and is cut off on replay
+ * - every append is forced to disk before it returns
+ * - scan() streams the records committed so far through a buffered reader, without blocking appends
+ * - rewrite() swaps in a compacted file atomically; not to be mixed with scan()
+ */
+public final class RecordLog implements Closeable {
+
+    private static final int HEADER = 8;
+    private static final int READ_BUFFER = 1 << 16;
+
+    private final Path path;
+    private FileChannel channel;
+    private long end;
+    private long records;
+
+    public RecordLog(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /** Feeds every intact record to {@code sink}, then truncates whatever follows the last one. */
+    public synchronized void replay(Consumer<byte[]> sink) throws IOException {
+        long[] count = {0};
+        long good = read(channel.size(), bytes -> {
+            sink.accept(bytes);
+            count[0]++;
+        });
+        channel.truncate(good);
+        channel.position(good);
+        end = good;
+        records = count[0];
+    }
+
+    public synchronized void append(byte[] record) throws IOException {
+        ByteBuffer buf = frame(record);
+        while (buf.hasRemaining()) channel.write(buf);
+        channel.force(false);
+        end += HEADER + record.length;
+        records++;
+    }
+
+    public synchronized long records() {
+        return records;
+    }
+
+    /** Streams every record appended before this call; memory use does not depend on the file size. */
+    public void scan(Consumer<byte[]> sink) throws IOException {
+        long limit;
+        synchronized (this) {
+            limit = end;
+        }
+        read(limit, sink);
+    }
+
+    /** Replaces the whole log with {@code live}. */
+    public synchronized void rewrite(List<byte[]> live) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] record : live) {
+                ByteBuffer buf = frame(record);
+                while (buf.hasRemaining()) out.write(buf);
+            }
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = live.size();
+        } finally {
+            // The compacted file, or the previous one if the move failed: appends must keep working either way
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = channel.size();
+            channel.position(end);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /** Reads records up to {@code limit} and returns the offset following the last intact one. */
+    private long read(long limit, Consumer<byte[]> sink) throws IOException {
+        long pos = 0;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, READ_BUFFER))) {
+            while (pos + HEADER <= limit) {
+                int len = in.readInt();
+                int crc = in.readInt();
+                if (len < 0 || pos + HEADER + len > limit) break;
+                byte[] body = new byte[len];
+                in.readFully(body);
+                if (checksum(body) != crc) break;
+                sink.accept(body);
+                pos += HEADER + len;
+            }
+        } catch (EOFException e) {
+            // torn tail: stop at the last intact record
+        }
+        return pos;
+    }
+
+    private static ByteBuffer frame(byte[] record) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + record.length);
+        buf.putInt(record.length).putInt(checksum(record)).put(record).flip();
+        return buf;
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
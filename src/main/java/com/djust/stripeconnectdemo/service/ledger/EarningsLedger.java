@@ -0,0 +1,146 @@
+package com.djust.stripeconnectdemo.service.ledger;
+
+import com.djust.stripeconnectdemo.service.journal.RecordLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Durable record of what Djust earned (application fees) and received (transfers), per tenant.
+ * - fed from payment_intent.succeeded / transfer.created webhooks and from the transfers this app makes
+ * - append-only file replayed at startup; the same Stripe object is recorded once (recent ids kept in memory)
+ * - rollups (per currency, seller, day) are updated on each append, so reports never scan the file
+ * - export() streams the file for reports and reconciliation
+ */
+@Slf4j
+public class EarningsLedger implements AutoCloseable {
+
+    /** Receives exported entries; may write to a response stream. */
+    public interface EntrySink {
+        void accept(LedgerEntry entry) throws IOException;
+    }
+
+    private static final byte FEE = 1;
+    private static final byte TRANSFER = 2;
+
+    private final RecordLog file;
+    private final LedgerRollups rollups = new LedgerRollups();
+    private final Set<String> seen;
+
+    public EarningsLedger(Path path, int dedupCapacity) throws IOException {
+        this.seen = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupCapacity;
+            }
+        });
+        this.file = new RecordLog(path);
+        file.replay(bytes -> {
+            LedgerEntry e = decode(bytes);
+            seen.add(e.id());
+            rollups.add(e);
+        });
+        log.info("Earnings ledger {}: {} entries", path, file.records());
+    }
+
+    /** Application fee of a succeeded destination charge. */
+    public boolean recordFee(String paymentIntentId, String charge, String seller, String currency, long fee, long created) {
+        return record(new LedgerEntry(LedgerEntry.FEE, paymentIntentId, charge, seller, currency.toLowerCase(Locale.ROOT), fee, created));
+    }
+
+    /** Transfer from the platform to the Djust account. */
+    public boolean recordTransfer(String transferId, String destination, String currency, long amount, long created) {
+        return record(new LedgerEntry(LedgerEntry.TRANSFER, transferId, null, destination, currency.toLowerCase(Locale.ROOT), amount, created));
+    }
+
+    /** Appends the entry unless this Stripe object was already recorded; returns whether it was new. */
+    public synchronized boolean record(LedgerEntry entry) {
+        if (entry.amount() <= 0 || seen.contains(entry.id())) return false;
+        try {
+            file.append(encode(entry));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to earnings ledger", e);
+        }
+        seen.add(entry.id());
+        rollups.add(entry);
+        return true;
+    }
+
+    public LedgerRollups rollups() {
+        return rollups;
+    }
+
+    public long entries() {
+        return file.records();
+    }
+
+    /** Streams every entry recorded so far that matches {@code filter}, oldest first, in constant memory. */
+    public void export(Predicate<LedgerEntry> filter, EntrySink sink) throws IOException {
+        try {
+            file.scan(bytes -> {
+                LedgerEntry e = decode(bytes);
+                if (!filter.test(e)) return;
+                try {
+                    sink.accept(e);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // Record encoding: [type:1][id][charge?][account?][currency][amount:8][created:8]
+
+    private static byte[] encode(LedgerEntry e) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(LedgerEntry.FEE.equals(e.type()) ? FEE : TRANSFER);
+            out.writeUTF(e.id());
+            writeString(out, e.charge());
+            writeString(out, e.account());
+            out.writeUTF(e.currency());
+            out.writeLong(e.amount());
+            out.writeLong(e.created());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static LedgerEntry decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            String type = in.readByte() == FEE ? LedgerEntry.FEE : LedgerEntry.TRANSFER;
+            return new LedgerEntry(type, in.readUTF(), readString(in), readString(in), in.readUTF(), in.readLong(), in.readLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
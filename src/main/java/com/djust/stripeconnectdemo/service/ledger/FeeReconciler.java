@@ -0,0 +1,201 @@
+package com.djust.stripeconnectdemo.service.ledger;
+
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.ApplicationFee;
+import com.stripe.model.StripeCollection;
+import com.stripe.model.Transfer;
+import com.stripe.param.ApplicationFeeListParams;
+import com.stripe.param.TransferListParams;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the earnings ledger against Stripe for a time window.
+ * - ledger side: entries of the window streamed from the file, indexed by platform charge (fees) or transfer id
+ * - Stripe side: application fees and transfers to Djust listed page by page (100 per call, paced by the rate limiter)
+ * - reports per-currency totals of both sides and the differences (missing on either side, amount mismatch)
+ * Scheduled on the previous UTC day; windows are compared on creation time, so objects near a boundary may show up
+ * as missing on one side when the webhook and the Stripe object straddle it.
+ */
+@Slf4j
+public class FeeReconciler implements AutoCloseable {
+
+    private static final long PAGE_SIZE = 100;
+    private static final int MAX_SAMPLES = 100;
+
+    /** One difference; a null amount means the object is missing on that side. */
+    public record Mismatch(String type, String id, String currency, Long ledger_amount, Long stripe_amount) { }
+
+    public record Report(String from, String to, String checked_at, boolean ok,
+                         Map<String, LedgerRollups.Totals> ledger, Map<String, LedgerRollups.Totals> stripe,
+                         long missing_in_ledger, long missing_in_stripe, long amount_mismatches,
+                         List<Mismatch> mismatches, String error) { }
+
+    private final StripeClient stripe;
+    private final EarningsLedger ledger;
+    private final AccountRegistry registry;
+    private final ScheduledExecutorService scheduler;
+    private volatile Report last;
+
+    public FeeReconciler(StripeClient stripe, EarningsLedger ledger, AccountRegistry registry, String tenant) {
+        this.stripe = stripe;
+        this.ledger = ledger;
+        this.registry = registry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("fee-reconcile-" + tenant).daemon().factory());
+    }
+
+    /** Reconciles the previous UTC day every {@code interval}. */
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(this::reconcilePreviousDay, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Report last() {
+        return last;
+    }
+
+    /** Compares ledger and Stripe over [from, to); Stripe failures are reported in {@code error}, not thrown. */
+    public synchronized Report reconcile(Instant from, Instant to) {
+        Run run = new Run();
+        String error = null;
+        try {
+            ledger.export(e -> e.created() >= from.getEpochSecond() && e.created() < to.getEpochSecond(), run::ledger);
+            fees(run, from, to);
+            transfers(run, from, to);
+            run.remaining();
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.warn("Fee reconciliation {} - {} failed: {}", from, to, e.getMessage());
+        }
+        Report report = new Report(from.toString(), to.toString(), Instant.now().toString(),
+                error == null && run.mismatchCount() == 0, run.ledgerTotals, run.stripeTotals,
+                run.missingInLedger, run.missingInStripe, run.amountMismatches, run.samples, error);
+        last = report;
+        if (error == null && !report.ok()) {
+            log.warn("Fee reconciliation {} - {}: {} missing in ledger, {} missing in Stripe, {} amount mismatches",
+                    from, to, run.missingInLedger, run.missingInStripe, run.amountMismatches);
+        }
+        return report;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void reconcilePreviousDay() {
+        Instant today = LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant();
+        reconcile(today.minus(Duration.ofDays(1)), today);
+    }
+
+    private void fees(Run run, Instant from, Instant to) throws StripeException {
+        String after = null;
+        while (true) {
+            ApplicationFeeListParams.Builder params = ApplicationFeeListParams.builder()
+                    .setLimit(PAGE_SIZE)
+                    .setCreated(ApplicationFeeListParams.Created.builder().setGte(from.getEpochSecond()).setLt(to.getEpochSecond()).build());
+            if (after != null) params.setStartingAfter(after);
+            StripeCollection<ApplicationFee> page = stripe.applicationFees().list(params.build());
+            for (ApplicationFee fee : page.getData()) {
+                run.stripe(LedgerEntry.FEE, platformCharge(fee), fee.getCurrency(), fee.getAmount());
+                after = fee.getId();
+            }
+            if (!Boolean.TRUE.equals(page.getHasMore()) || page.getData().isEmpty()) return;
+        }
+    }
+
+    /**
+     * The platform charge (ch_...) the fee was taken on, as recorded in the ledger. For destination charges Stripe
+     * puts the connected account's payment (py_...) in charge and the platform charge in originating_transaction.
+     */
+    private static String platformCharge(ApplicationFee fee) {
+        return fee.getOriginatingTransaction() != null ? fee.getOriginatingTransaction() : fee.getCharge();
+    }
+
+    private void transfers(Run run, Instant from, Instant to) throws StripeException {
+        String djustId = registry.getDjustAccountId();
+        if (djustId == null || djustId.isBlank()) return;
+        String after = null;
+        while (true) {
+            TransferListParams.Builder params = TransferListParams.builder()
+                    .setLimit(PAGE_SIZE)
+                    .setDestination(djustId)
+                    .setCreated(TransferListParams.Created.builder().setGte(from.getEpochSecond()).setLt(to.getEpochSecond()).build());
+            if (after != null) params.setStartingAfter(after);
+            StripeCollection<Transfer> page = stripe.transfers().list(params.build());
+            for (Transfer transfer : page.getData()) {
+                run.stripe(LedgerEntry.TRANSFER, transfer.getId(), transfer.getCurrency(), transfer.getAmount());
+                after = transfer.getId();
+            }
+            if (!Boolean.TRUE.equals(page.getHasMore()) || page.getData().isEmpty()) return;
+        }
+    }
+
+    /** State of one reconciliation: ledger entries not yet matched by a Stripe object, totals, differences. */
+    private static final class Run {
+        final Map<String, LedgerEntry> unmatched = new HashMap<>();
+        final Map<String, LedgerRollups.Totals> ledgerTotals = new TreeMap<>();
+        final Map<String, LedgerRollups.Totals> stripeTotals = new TreeMap<>();
+        final List<Mismatch> samples = new ArrayList<>();
+        long missingInLedger;
+        long missingInStripe;
+        long amountMismatches;
+
+        void ledger(LedgerEntry e) {
+            ledgerTotals.merge(e.currency(), LedgerRollups.Totals.ZERO.plus(e), (cur, inc) -> cur.plus(e));
+            unmatched.put(key(e.type(), stripeId(e)), e);
+        }
+
+        void stripe(String type, String id, String currency, Long amount) {
+            long value = amount == null ? 0 : amount;
+            LedgerEntry asEntry = new LedgerEntry(type, id, null, null, currency, value, 0);
+            stripeTotals.merge(currency, LedgerRollups.Totals.ZERO.plus(asEntry), (cur, inc) -> cur.plus(asEntry));
+            LedgerEntry e = unmatched.remove(key(type, id));
+            if (e == null) {
+                missingInLedger++;
+                sample(new Mismatch(type, id, currency, null, value));
+            } else if (e.amount() != value) {
+                amountMismatches++;
+                sample(new Mismatch(type, id, currency, e.amount(), value));
+            }
+        }
+
+        void remaining() {
+            for (LedgerEntry e : unmatched.values()) {
+                missingInStripe++;
+                sample(new Mismatch(e.type(), stripeId(e), e.currency(), e.amount(), null));
+            }
+            unmatched.clear();
+        }
+
+        long mismatchCount() {
+            return missingInLedger + missingInStripe + amountMismatches;
+        }
+
+        private void sample(Mismatch m) {
+            if (samples.size() < MAX_SAMPLES) samples.add(m);
+        }
+
+        /** Fee entries are matched on their platform charge (see platformCharge), transfers on their own id. */
+        private static String stripeId(LedgerEntry e) {
+            return LedgerEntry.FEE.equals(e.type()) && e.charge() != null ? e.charge() : e.id();
+        }
+
+        private static String key(String type, String id) {
+            return type + ":" + id;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.djust.stripeconnectdemo.service.ledger;
+
+/**
+ * One line of the earnings ledger.
+ * - fee: application fee of a succeeded destination charge (id = PaymentIntent, charge = its charge, account = seller)
+ * - transfer: platform -> Djust transfer (id = Transfer, account = Djust account)
+ * Amounts in minor units, created in epoch seconds (as Stripe reports them).
+ */
+public record LedgerEntry(String type, String id, String charge, String account, String currency, long amount, long created) {
+
+    public static final String FEE = "fee";
+    public static final String TRANSFER = "transfer";
+}
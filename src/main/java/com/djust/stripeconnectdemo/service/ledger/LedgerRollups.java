@@ -0,0 +1,71 @@
+package com.djust.stripeconnectdemo.service.ledger;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Running totals of the earnings ledger, updated on each append (and rebuilt by replay at startup).
+ * - per currency: fees earned and transferred to Djust
+ * - per seller and currency: fees earned on that seller's payments
+ * - per UTC day and currency: both
+ */
+public class LedgerRollups {
+
+    /** Fees earned (and number of payments), amount transferred to Djust (and number of transfers). */
+    public record Totals(long fees, long payments, long transferred, long transfers) {
+
+        static final Totals ZERO = new Totals(0, 0, 0, 0);
+
+        Totals plus(LedgerEntry e) {
+            return LedgerEntry.FEE.equals(e.type())
+                    ? new Totals(fees + e.amount(), payments + 1, transferred, transfers)
+                    : new Totals(fees, payments, transferred + e.amount(), transfers + 1);
+        }
+    }
+
+    private final Map<String, Totals> byCurrency = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Totals>> bySeller = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Map<String, Totals>> byDay = new ConcurrentSkipListMap<>();
+
+    void add(LedgerEntry e) {
+        byCurrency.merge(e.currency(), Totals.ZERO.plus(e), (cur, inc) -> cur.plus(e));
+        if (LedgerEntry.FEE.equals(e.type()) && e.account() != null) {
+            bySeller.computeIfAbsent(e.account(), k -> new ConcurrentHashMap<>()).merge(e.currency(), Totals.ZERO.plus(e), (cur, inc) -> cur.plus(e));
+        }
+        byDay.computeIfAbsent(day(e.created()), k -> new ConcurrentHashMap<>()).merge(e.currency(), Totals.ZERO.plus(e), (cur, inc) -> cur.plus(e));
+    }
+
+    public Map<String, Totals> byCurrency() {
+        return new TreeMap<>(byCurrency);
+    }
+
+    public Map<String, Totals> seller(String account) {
+        Map<String, Totals> totals = bySeller.get(account);
+        return totals == null ? Map.of() : new TreeMap<>(totals);
+    }
+
+    public Map<String, Map<String, Totals>> bySeller() {
+        Map<String, Map<String, Totals>> out = new TreeMap<>();
+        bySeller.forEach((account, totals) -> out.put(account, new TreeMap<>(totals)));
+        return out;
+    }
+
+    /** Days in [from, to] (yyyy-MM-dd, inclusive; null = unbounded), oldest first. */
+    public Map<String, Map<String, Totals>> byDay(String from, String to) {
+        NavigableMap<String, Map<String, Totals>> range = byDay;
+        if (from != null) range = range.tailMap(from, true);
+        if (to != null) range = range.headMap(to, true);
+        Map<String, Map<String, Totals>> out = new TreeMap<>();
+        range.forEach((day, totals) -> out.put(day, new TreeMap<>(totals)));
+        return out;
+    }
+
+    static String day(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond).atZone(ZoneOffset.UTC).toLocalDate().toString();
+    }
+}
@@ -0,0 +1,407 @@
+package com.djust.stripeconnectdemo.service.outbox;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.journal.RecordLog;
+import com.djust.stripeconnectdemo.service.payment.OrderIdempotency;
+import com.djust.stripeconnectdemo.service.payment.PaymentBatchService.ItemError;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentReq;
+import com.djust.stripeconnectdemo.service.payment.PaymentService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous PaymentIntent creation backed by a durable outbox (POST /payments with Prefer: respond-async).
+ * - the request is forced to the outbox log and answered with a handle before Stripe is called
+ * - workers drain the outbox to Stripe; the idempotency key is fixed at enqueue time (order_id, else the handle),
+ *   so a retry, or a replay after a crash mid-call, returns the intent created by the first attempt
+ * - connection errors, 429 and 5xx are retried with full-jitter backoff up to maxAttempts; other failures are final
+ * - pending entries are replayed at startup; finished ones are kept for {@code retention} so clients can poll,
+ *   then dropped by a periodic sweep; the log is rewritten once it holds compactionThreshold dropped records
+ */
+@Slf4j
+public class PaymentOutbox implements AutoCloseable {
+
+    /** What the async endpoints return; state is pending, succeeded or failed. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Status(String handle, String order_id, String state, String id, String client_secret, String status, ItemError error) {
+        public boolean pending() { return "pending".equals(state); }
+    }
+
+    private static final byte ENQUEUED = 1;
+    private static final byte SUCCEEDED = 2;
+    private static final byte FAILED = 3;
+
+    private static final class Entry {
+        final String handle;
+        final String kind;
+        final PaymentIntentReq req;
+        final long createdAt;
+        final CompletableFuture<Status> done = new CompletableFuture<>();
+        volatile Status status;
+        long finishedAt;
+        int attempts;
+
+        Entry(String handle, String kind, PaymentIntentReq req, long createdAt) {
+            this.handle = handle;
+            this.kind = kind;
+            this.req = req;
+            this.createdAt = createdAt;
+            this.status = new Status(handle, req.order_id(), "pending", null, null, null, null);
+        }
+    }
+
+    private final PaymentService payments;
+    private final RecordLog outboxLog;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final int compactionThreshold;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> handlesByOrder = new ConcurrentHashMap<>();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object writeLock = new Object();
+    /** Records still in the log for entries already dropped (guarded by writeLock). */
+    private int deadRecords;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService retries =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("outbox-retry").daemon().factory());
+
+    public PaymentOutbox(PaymentService payments, Path path, int maxAttempts, Duration retryBackoff, Duration maxBackoff,
+                         Duration retention, int compactionThreshold) throws IOException {
+        this.payments = payments;
+        this.outboxLog = new RecordLog(path);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        this.compactionThreshold = compactionThreshold;
+        outboxLog.replay(this::apply);
+        entries.values().stream().filter(e -> e.status.pending()).forEach(queue::add);
+        pending.set(queue.size());
+        if (!queue.isEmpty()) log.info("Outbox {}: {} pending payment(s) replayed", path, queue.size());
+    }
+
+    /** Starts {@code concurrency} workers draining the outbox, and the sweep of finished entries past retention. */
+    public void start(int concurrency) {
+        for (int i = 0; i < concurrency; i++) workers.execute(this::drain);
+        long every = Math.max(1_000, Math.min(retention.toMillis(), 60_000));
+        retries.scheduleWithFixedDelay(this::expireQuietly, 0, every, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Validates and durably enqueues a payment; kind is "destination" or "platform".
+     * The same order_id posted again returns the existing handle (CONFLICT if its parameters differ).
+     */
+    public Status submit(String kind, PaymentIntentReq req) {
+        if ("platform".equals(kind)) payments.validatePlatform(req);
+        else payments.validateDestination(req);
+        boolean hasOrder = req.order_id() != null && !req.order_id().isBlank();
+        synchronized (writeLock) {
+            if (hasOrder) {
+                Entry existing = entryOrNull(handlesByOrder.get(kind + "|" + req.order_id()));
+                if (existing != null) {
+                    if (!existing.req.equals(req)) {
+                        throw new BusinessException(ErrorCode.CONFLICT, "order_id already used with different payment parameters",
+                                Map.of("order_id", req.order_id(), "handle", existing.handle));
+                    }
+                    return existing.status;
+                }
+            }
+            Entry entry = new Entry("pay_" + UUID.randomUUID().toString().replace("-", ""), kind, req, System.currentTimeMillis());
+            append(enqueued(entry));
+            index(entry);
+            pending.incrementAndGet();
+            queue.add(entry);
+            return entry.status;
+        }
+    }
+
+    public Status get(String handle) {
+        return entry(handle).status;
+    }
+
+    /** Completes when the payment is finished, or after {@code timeout} with its current status. */
+    public CompletableFuture<Status> await(String handle, Duration timeout) {
+        Entry entry = entry(handle);
+        if (entry.done.isDone() || timeout.isZero()) return CompletableFuture.completedFuture(entry.status);
+        // copy(): the timeout must not complete the shared future
+        return entry.done.copy()
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(s -> s != null ? s : entry.status);
+    }
+
+    /** Payments accepted but not yet finished (queued, in flight or waiting for a retry). */
+    public int pending() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        workers.shutdownNow();
+        retries.shutdownNow();
+        outboxLog.close();
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            process(entry);
+        }
+    }
+
+    private void process(Entry entry) {
+        entry.attempts++;
+        // Stable across retries and restarts: order-derived key, else one tied to the handle
+        String key = "pi-async-" + entry.handle;
+        try {
+            OrderIdempotency.CreatedIntent pi = "platform".equals(entry.kind)
+                    ? payments.createPlatform(entry.req, key)
+                    : payments.createDestination(entry.req, key);
+            finish(entry, SUCCEEDED, new Status(entry.handle, entry.req.order_id(), "succeeded", pi.id(), pi.clientSecret(), pi.status(), null));
+        } catch (BusinessException e) {
+            fail(entry, e.getCode(), e.getMessage());
+        } catch (StripeException e) {
+            if (retryable(e) && entry.attempts < maxAttempts) {
+                retry(entry);
+            } else {
+                fail(entry, e instanceof RateLimitException ? ErrorCode.RATE_LIMITED : ErrorCode.STRIPE_API_ERROR, String.valueOf(e.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox payment {} attempt {} failed: {}", entry.handle, entry.attempts, e.getMessage());
+            if (entry.attempts < maxAttempts) retry(entry);
+            else fail(entry, ErrorCode.INTERNAL_ERROR, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static boolean retryable(StripeException e) {
+        if (e instanceof ApiConnectionException || e instanceof RateLimitException) return true;
+        return e.getStatusCode() != null && e.getStatusCode() >= 500;
+    }
+
+    private void retry(Entry entry) {
+        long cap = Math.min(maxBackoff.toMillis(), retryBackoff.toMillis() << Math.min(entry.attempts - 1, 20));
+        retries.schedule(() -> queue.add(entry), ThreadLocalRandom.current().nextLong(cap + 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void fail(Entry entry, ErrorCode code, String message) {
+        finish(entry, FAILED, new Status(entry.handle, entry.req.order_id(), "failed", null, null, null, new ItemError(code.name(), message)));
+    }
+
+    private void finish(Entry entry, byte op, Status status) {
+        entry.finishedAt = System.currentTimeMillis();
+        entry.status = status;
+        synchronized (writeLock) {
+            try {
+                append(finished(entry, op));
+            } catch (UncheckedIOException e) {
+                // Still pending on disk: a restart replays it and the idempotency key returns the same intent
+                log.error("Unable to record outcome of outbox payment {}: {}", entry.handle, e.getMessage());
+            }
+        }
+        pending.decrementAndGet();
+        entry.done.complete(status);
+    }
+
+    private Entry entry(String handle) {
+        Entry entry = entryOrNull(handle);
+        if (entry == null) throw new BusinessException(ErrorCode.NOT_FOUND, "Unknown payment handle " + handle);
+        return entry;
+    }
+
+    private Entry entryOrNull(String handle) {
+        return handle == null ? null : entries.get(handle);
+    }
+
+    private void index(Entry entry) {
+        entries.put(entry.handle, entry);
+        if (entry.req.order_id() != null && !entry.req.order_id().isBlank()) {
+            handlesByOrder.put(entry.kind + "|" + entry.req.order_id(), entry.handle);
+        }
+    }
+
+    private void forget(Entry entry) {
+        entries.remove(entry.handle);
+        if (entry.req.order_id() != null) handlesByOrder.remove(entry.kind + "|" + entry.req.order_id(), entry.handle);
+    }
+
+    private void expireQuietly() {
+        try {
+            expire();
+        } catch (RuntimeException e) {
+            log.warn("Outbox sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /** Drops finished entries past retention, and compacts the log once enough of it is dead. */
+    private void expire() {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        synchronized (writeLock) {
+            for (Entry e : entries.values()) {
+                if (!e.status.pending() && e.finishedAt < cutoff) {
+                    forget(e);
+                    deadRecords += 2;
+                }
+            }
+            if (deadRecords >= compactionThreshold) compact();
+        }
+    }
+
+    /** Rewrites the log with the entries still held (pending, or finished within retention). */
+    private void compact() {
+        List<byte[]> live = new ArrayList<>();
+        for (Entry e : entries.values()) {
+            live.add(enqueued(e));
+            if (!e.status.pending()) live.add(finished(e, e.status.error() == null ? SUCCEEDED : FAILED));
+        }
+        try {
+            outboxLog.rewrite(live);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        deadRecords = 0;
+    }
+
+    private void append(byte[] record) {
+        try {
+            outboxLog.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to payment outbox", e);
+        }
+    }
+
+    // Record encoding: [op:1] then fields; nullable values are prefixed with a presence flag
+
+    private static byte[] enqueued(Entry e) {
+        return encode(out -> {
+            out.writeByte(ENQUEUED);
+            out.writeUTF(e.handle);
+            out.writeUTF(e.kind);
+            out.writeLong(e.createdAt);
+            writeLong(out, e.req.amount());
+            writeString(out, e.req.currency());
+            writeString(out, e.req.connected_account_id());
+            writeLong(out, e.req.application_fee_amount() == null ? null : e.req.application_fee_amount().longValue());
+            writeString(out, e.req.order_id());
+        });
+    }
+
+    private static byte[] finished(Entry e, byte op) {
+        Status s = e.status;
+        return encode(out -> {
+            out.writeByte(op);
+            out.writeUTF(e.handle);
+            out.writeLong(e.finishedAt);
+            if (op == SUCCEEDED) {
+                writeString(out, s.id());
+                writeString(out, s.client_secret());
+                writeString(out, s.status());
+            } else {
+                writeString(out, s.error().code());
+                writeString(out, s.error().message());
+            }
+        });
+    }
+
+    private void apply(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte op = in.readByte();
+            String handle = in.readUTF();
+            if (op == ENQUEUED) {
+                String kind = in.readUTF();
+                long createdAt = in.readLong();
+                Long amount = readLong(in);
+                String currency = readString(in);
+                String destination = readString(in);
+                Long fee = readLong(in);
+                String orderId = readString(in);
+                PaymentIntentReq req = new PaymentIntentReq(amount, currency, destination, fee == null ? null : fee.intValue(), orderId);
+                index(new Entry(handle, kind, req, createdAt));
+                return;
+            }
+            Entry entry = entries.get(handle);
+            if (entry == null) {
+                deadRecords++;
+                return;
+            }
+            entry.finishedAt = in.readLong();
+            entry.status = op == SUCCEEDED
+                    ? new Status(handle, entry.req.order_id(), "succeeded", readString(in), readString(in), readString(in), null)
+                    : new Status(handle, entry.req.order_id(), "failed", null, null, null, new ItemError(readString(in), readString(in)));
+            entry.done.complete(entry.status);
+            if (entry.finishedAt < System.currentTimeMillis() - retention.toMillis()) {
+                forget(entry);
+                deadRecords += 2;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt payment outbox record", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeLong(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
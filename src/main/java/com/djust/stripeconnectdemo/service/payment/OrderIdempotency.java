@@ -0,0 +1,65 @@
+package com.djust.stripeconnectdemo.service.payment;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.cache.BoundedTtlCache;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One PaymentIntent per order_id.
+ * - the Stripe idempotency key is derived from the order, so retries/replays never create a second intent
+ * - recent orders are answered from a bounded local cache without calling Stripe
+ * - reusing an order_id with different amount/currency/destination/fee is rejected (CONFLICT)
+ */
+public class OrderIdempotency {
+
+    /** What /payments returns for an order. */
+    public record CreatedIntent(String id, String clientSecret, String status) { }
+
+    /** Stripe call that receives the derived idempotency key. */
+    @FunctionalInterface
+    public interface Creator {
+        PaymentIntent create(RequestOptions options) throws StripeException;
+    }
+
+    private record Entry(CreatedIntent intent, String fingerprint) { }
+
+    private final BoundedTtlCache<String, Entry> cache;
+    private final Duration ttl;
+
+    public OrderIdempotency(int maxEntries, Duration ttl, CacheMetrics metrics) {
+        this.cache = new BoundedTtlCache<>(maxEntries, metrics);
+        this.ttl = ttl;
+    }
+
+    /** Stable Stripe idempotency key for an order; kind separates destination and platform payments. */
+    public static String idempotencyKey(String kind, String orderId) {
+        return "pi-" + kind + "-" + orderId;
+    }
+
+    /** Request parameters that must match for a repeat of the same order. */
+    public static String fingerprint(Long amount, String currency, String destination, Integer applicationFee) {
+        return amount + "|" + currency.toLowerCase(Locale.ROOT) + "|" + destination + "|" + applicationFee;
+    }
+
+    public CreatedIntent createOnce(String kind, String orderId, String fingerprint, Creator creator) throws StripeException {
+        String key = idempotencyKey(kind, orderId);
+        Entry entry = cache.getOrLoad(key, () -> {
+            PaymentIntent pi = creator.create(RequestOptions.builder().setIdempotencyKey(key).build());
+            return new Entry(new CreatedIntent(pi.getId(), pi.getClientSecret(), pi.getStatus()), fingerprint);
+        }, e -> ttl);
+        if (!entry.fingerprint().equals(fingerprint)) {
+            throw new BusinessException(ErrorCode.CONFLICT,
+                    "order_id already used with different payment parameters",
+                    Map.of("order_id", orderId, "payment_intent_id", entry.intent().id()));
+        }
+        return entry.intent();
+    }
+}
@@ -0,0 +1,133 @@
+package com.djust.stripeconnectdemo.service.payment;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.ratelimit.TokenBucket;
+import com.djust.stripeconnectdemo.stripe.StripeCallContext;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Creates a batch of destination PaymentIntents concurrently.
+ * - at most {@code concurrency} creations in flight, paced by a token bucket ({@code ratePerSecond})
+ * - each result is handed to the caller as soon as it completes, in completion order
+ * - order_id idempotency applies per item, so replaying a batch is safe
+ * - if the caller stops consuming (client gone, interrupted), items not yet started are skipped: only the
+ *   creations already in flight are waited for
+ * - {@link #timeout} sizes the HTTP response time of a batch from its pacing
+ */
+public class PaymentBatchService {
+
+    private static final Duration BATCH_TIMEOUT_SLACK = Duration.ofMinutes(1);
+
+    /** One NDJSON result line: the created PaymentIntent, or {@code error}. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemResult(int index, String order_id, String id, String client_secret, String status, ItemError error) {
+        static ItemResult failed(int index, PaymentIntentReq req, ErrorCode code, String message) {
+            return new ItemResult(index, req.order_id(), null, null, null, new ItemError(code.name(), message));
+        }
+    }
+
+    public record ItemError(String code, String message) { }
+
+    private final PaymentService payments;
+    private final int maxItems;
+    private final int concurrency;
+    private final double ratePerSecond;
+    private final TokenBucket rateLimiter;
+
+    public PaymentBatchService(PaymentService payments, int maxItems, int concurrency, double ratePerSecond) {
+        this.payments = payments;
+        this.maxItems = maxItems;
+        this.concurrency = concurrency;
+        this.ratePerSecond = ratePerSecond;
+        this.rateLimiter = new TokenBucket(ratePerSecond, Math.max(1, concurrency));
+    }
+
+    public int maxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Time allowed to stream a batch of {@code items}: twice its paced duration (items / ratePerSecond), so slow
+     * Stripe responses fit too, plus a minute for the last creations in flight.
+     */
+    public Duration timeout(int items) {
+        return Duration.ofMillis((long) Math.ceil(2_000 * items / ratePerSecond)).plus(BATCH_TIMEOUT_SLACK);
+    }
+
+    /** Validates every item; returns index -> error message for the invalid ones (empty when all valid). */
+    public Map<Integer, String> validate(List<PaymentIntentReq> items) {
+        Map<Integer, String> errors = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                payments.validateDestination(items.get(i));
+            } catch (BusinessException e) {
+                errors.put(i, e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Creates all items and calls {@code sink} once per item (from the calling thread) as results arrive.
+     * An exception from {@code sink} (or an interrupt) abandons the remaining items and is rethrown.
+     */
+    public void create(List<PaymentIntentReq> items, Consumer<ItemResult> sink) throws InterruptedException {
+        LinkedBlockingQueue<ItemResult> results = new LinkedBlockingQueue<>();
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < items.size(); i++) {
+                int index = i;
+                PaymentIntentReq req = items.get(i);
+                executor.submit(StripeCallContext.wrap(() -> results.add(createOne(index, req, permits, abandoned))));
+            }
+            try {
+                for (int i = 0; i < items.size(); i++) {
+                    sink.accept(results.take());
+                }
+            } catch (InterruptedException | RuntimeException e) {
+                abandoned.set(true); // close() then only waits for the creations already in flight
+                throw e;
+            }
+        }
+    }
+
+    private ItemResult createOne(int index, PaymentIntentReq req, Semaphore permits, AtomicBoolean abandoned) {
+        try {
+            permits.acquire();
+            try {
+                if (abandoned.get()) return ItemResult.failed(index, req, ErrorCode.INTERNAL_ERROR, "batch abandoned");
+                rateLimiter.acquire();
+                if (abandoned.get()) return ItemResult.failed(index, req, ErrorCode.INTERNAL_ERROR, "batch abandoned");
+                OrderIdempotency.CreatedIntent pi = payments.createDestination(req);
+                return new ItemResult(index, req.order_id(), pi.id(), pi.clientSecret(), pi.status(), null);
+            } finally {
+                permits.release();
+            }
+        } catch (BusinessException e) {
+            return ItemResult.failed(index, req, e.getCode(), e.getMessage());
+        } catch (StripeException e) {
+            ErrorCode code = (e instanceof RateLimitException) ? ErrorCode.RATE_LIMITED : ErrorCode.STRIPE_API_ERROR;
+            return ItemResult.failed(index, req, code, String.valueOf(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ItemResult.failed(index, req, ErrorCode.INTERNAL_ERROR, "interrupted");
+        } catch (RuntimeException e) {
+            return ItemResult.failed(index, req, ErrorCode.INTERNAL_ERROR, String.valueOf(e.getMessage()));
+        }
+    }
+}
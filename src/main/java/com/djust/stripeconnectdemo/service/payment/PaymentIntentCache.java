@@ -0,0 +1,77 @@
+package com.djust.stripeconnectdemo.service.payment;
+
+import com.djust.stripeconnectdemo.service.cache.BoundedTtlCache;
+import com.djust.stripeconnectdemo.service.cache.CacheMetrics;
+import com.djust.stripeconnectdemo.stripe.StripeOutage;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+import java.time.Duration;
+
+/**
+ * PaymentIntent status as served by GET /payments/{id} (polled by the success page), read through a bounded cache.
+ * - terminal intents (succeeded, canceled) are kept for terminalTtl: they never change again
+ * - in-flight ones for pendingTtl only; concurrent polls of an expired entry share one retrieve
+ * - intents this app creates are stored at creation, so the first poll does not call Stripe
+ * - payment_intent.succeeded / canceled webhooks store the final status (other events may arrive out of order)
+ * - while Stripe is unavailable (errors, open circuit), the last known snapshot is served, marked stale
+ */
+public class PaymentIntentCache {
+
+    /** {@code stale}: last known data, served because Stripe is unavailable. */
+    public record Snapshot(String id, Long amount, String currency, Long application_fee_amount, String status, boolean stale) {
+
+        static Snapshot of(PaymentIntent pi) {
+            return new Snapshot(pi.getId(), pi.getAmount(), pi.getCurrency(), pi.getApplicationFeeAmount(), pi.getStatus(), false);
+        }
+
+        Snapshot asStale() {
+            return new Snapshot(id, amount, currency, application_fee_amount, status, true);
+        }
+
+        boolean terminal() {
+            return "succeeded".equals(status) || "canceled".equals(status);
+        }
+    }
+
+    private final StripeClient stripe;
+    private final Duration terminalTtl;
+    private final Duration pendingTtl;
+    private final BoundedTtlCache<String, Snapshot> cache;
+
+    public PaymentIntentCache(StripeClient stripe, int maxEntries, Duration terminalTtl, Duration pendingTtl, CacheMetrics metrics) {
+        this.stripe = stripe;
+        this.terminalTtl = terminalTtl;
+        this.pendingTtl = pendingTtl;
+        this.cache = new BoundedTtlCache<>(maxEntries, metrics);
+    }
+
+    /** Cached or retrieved snapshot; while Stripe is unavailable, the last known one marked stale (if any). */
+    public Snapshot get(String id) throws StripeException {
+        try {
+            return cache.getOrLoad(id, () -> Snapshot.of(stripe.paymentIntents().retrieve(id)), this::ttl);
+        } catch (StripeException e) {
+            Snapshot last = cache.getStale(id);
+            if (last == null || !StripeOutage.isOutage(e)) throw e;
+            return last.asStale();
+        }
+    }
+
+    /** Stores a PaymentIntent just returned by Stripe (creation, webhook) and returns it. */
+    public PaymentIntent remember(PaymentIntent pi) {
+        if (pi != null && pi.getId() != null) {
+            Snapshot s = Snapshot.of(pi);
+            cache.put(s.id(), s, ttl(s));
+        }
+        return pi;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private Duration ttl(Snapshot s) {
+        return s.terminal() ? terminalTtl : pendingTtl;
+    }
+}
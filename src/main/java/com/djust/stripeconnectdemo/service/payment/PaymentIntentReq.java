@@ -0,0 +1,4 @@
+package com.djust.stripeconnectdemo.service.payment;
+
+/** PaymentIntent request as posted by the OMS (single or batch). */
+public record PaymentIntentReq(Long amount, String currency, String connected_account_id, Integer application_fee_amount, String order_id) {}
@@ -0,0 +1,93 @@
+package com.djust.stripeconnectdemo.service.payment;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.fee.FeeEngine;
+import com.djust.stripeconnectdemo.service.fee.FeeTable;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PaymentIntent creation shared by /payments, /payments/platform and /payments/batch.
+ * - destination: charge on a connected account with transfer_data + application fee (given, or from the fee schedule)
+ * - platform: charge collected by the platform itself
+ * Without an order_id, callers that retry on their own (the outbox) pass a stable idempotency key.
+ * Created intents are stored in the PaymentIntentCache read by GET /payments/{id}.
+ * One instance per tenant (see TenantConfig).
+ */
+@RequiredArgsConstructor
+public class PaymentService {
+
+    private final StripeClient stripe;
+    private final OrderIdempotency idempotency;
+    private final FeeEngine fees;
+    private final PaymentIntentCache intents;
+
+    public void validateDestination(PaymentIntentReq req) {
+        validatePlatform(req);
+        if (req.connected_account_id() == null || req.connected_account_id().isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing connected_account_id");
+    }
+
+    public void validatePlatform(PaymentIntentReq req) {
+        if (req == null) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing payment");
+        if (req.amount() == null || req.amount() <= 0) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing or invalid amount");
+        if (req.currency() == null || req.currency().isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing currency");
+    }
+
+    public OrderIdempotency.CreatedIntent createDestination(PaymentIntentReq req) throws StripeException {
+        return createDestination(req, null);
+    }
+
+    public OrderIdempotency.CreatedIntent createDestination(PaymentIntentReq req, String idempotencyKey) throws StripeException {
+        validateDestination(req);
+        PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
+                .setAmount(req.amount())
+                .setCurrency(req.currency())
+                // Restrict to card to avoid delayed methods (faster availability in test)
+                .addPaymentMethodType("card")
+                .setTransferData(PaymentIntentCreateParams.TransferData.builder()
+                        .setDestination(req.connected_account_id())
+                        .build());
+
+        if (req.application_fee_amount() != null && req.application_fee_amount() >= 0) {
+            builder.setApplicationFeeAmount(req.application_fee_amount().longValue());
+        } else if (req.application_fee_amount() == null) {
+            long fee = fees.fee(req.connected_account_id(), req.currency(), req.amount());
+            if (fee != FeeTable.NO_FEE) builder.setApplicationFeeAmount(fee);
+        }
+        String fingerprint = OrderIdempotency.fingerprint(req.amount(), req.currency(), req.connected_account_id(), req.application_fee_amount());
+        return create("destination", req.order_id(), fingerprint, builder, idempotencyKey);
+    }
+
+    public OrderIdempotency.CreatedIntent createPlatform(PaymentIntentReq req) throws StripeException {
+        return createPlatform(req, null);
+    }
+
+    public OrderIdempotency.CreatedIntent createPlatform(PaymentIntentReq req, String idempotencyKey) throws StripeException {
+        validatePlatform(req);
+        PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
+                .setAmount(req.amount())
+                .setCurrency(req.currency())
+                // Restrict to card to avoid delayed methods (faster availability in test)
+                .addPaymentMethodType("card");
+        String fingerprint = OrderIdempotency.fingerprint(req.amount(), req.currency(), null, null);
+        return create("platform", req.order_id(), fingerprint, builder, idempotencyKey);
+    }
+
+    private OrderIdempotency.CreatedIntent create(String kind, String orderId, String fingerprint, PaymentIntentCreateParams.Builder builder,
+                                                  String idempotencyKey) throws StripeException {
+        if (orderId == null || orderId.isBlank()) {
+            PaymentIntent pi = intents.remember(idempotencyKey == null
+                    ? stripe.paymentIntents().create(builder.build())
+                    : stripe.paymentIntents().create(builder.build(), RequestOptions.builder().setIdempotencyKey(idempotencyKey).build()));
+            return new OrderIdempotency.CreatedIntent(pi.getId(), pi.getClientSecret(), pi.getStatus());
+        }
+        builder.putMetadata("order_id", orderId);
+        // Same order posted again (browser retry, OMS replay): same PaymentIntent, answered locally when known
+        return idempotency.createOnce(kind, orderId, fingerprint, options -> intents.remember(stripe.paymentIntents().create(builder.build(), options)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.djust.stripeconnectdemo.service.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket with two priority lanes and an adaptive rate (AIMD).
+ * - HIGH (payments, transfers) may use every token; LOW (dashboard reads) only when no HIGH caller
+ *   is waiting and a reserve of tokens is kept for HIGH
+ * - each observed 429 halves the rate (down to minRate); each success adds back a small step (up to maxRate)
+ */
+public class AdaptiveRateLimiter {
+
+    public enum Priority { HIGH, LOW }
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final double lowReserve;
+    private final double recoveryStep;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private int highWaiting;
+
+    /**
+     * @param maxRate        requests per second when Stripe is not throttling us
+     * @param minRate        floor after repeated 429s
+     * @param burst          bucket size
+     * @param reserveFraction share of the bucket LOW callers must leave for HIGH ones (0..1); capped at burst - 1 so
+     *                       a LOW caller always fits in a full bucket (no reserve with burst = 1)
+     */
+    public AdaptiveRateLimiter(double maxRate, double minRate, double burst, double reserveFraction) {
+        this.maxRate = maxRate;
+        this.minRate = Math.min(minRate, maxRate);
+        this.burst = Math.max(1, burst);
+        this.lowReserve = Math.min(this.burst - 1, this.burst * Math.max(0, Math.min(1, reserveFraction)));
+        this.recoveryStep = Math.max(0.01, maxRate / 100);
+        this.rate = maxRate;
+        this.tokens = this.burst;
+    }
+
+    public void acquire(Priority priority) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (priority == Priority.HIGH) highWaiting++;
+            try {
+                while (true) {
+                    refill();
+                    double needed = priority == Priority.HIGH ? 1 : 1 + lowReserve;
+                    boolean allowed = tokens >= needed && (priority == Priority.HIGH || highWaiting == 0);
+                    if (allowed) {
+                        tokens -= 1;
+                        return;
+                    }
+                    long waitNanos = (long) Math.ceil(Math.max(needed - tokens, 0.01) / rate * 1e9);
+                    changed.awaitNanos(waitNanos);
+                }
+            } finally {
+                if (priority == Priority.HIGH && --highWaiting == 0) changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stripe answered 429: back off multiplicatively and drop accumulated burst. */
+    public void onThrottled() {
+        lock.lock();
+        try {
+            refill();
+            rate = Math.max(minRate, rate / 2);
+            tokens = Math.min(tokens, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A call went through: recover additively. */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (rate < maxRate) {
+                refill();
+                rate = Math.min(maxRate, rate + recoveryStep);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double currentRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1) * rate);
+        lastRefill = now;
+    }
+}
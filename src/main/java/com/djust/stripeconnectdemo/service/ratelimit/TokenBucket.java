@@ -0,0 +1,58 @@
+package com.djust.stripeconnectdemo.service.ratelimit;
+
+/**
+ * Blocking token bucket: {@code ratePerSecond} tokens refilled continuously, up to {@code burst}.
+ */
+public class TokenBucket {
+
+    private final double burst;
+    private double ratePerNano;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be > 0");
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+    }
+
+    /** Waits until a token is available. */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / ratePerNano);
+            }
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /** Takes a token if one is available right now. */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double ratePerSecond() {
+        return ratePerNano * 1e9;
+    }
+
+    public synchronized void setRatePerSecond(double ratePerSecond) {
+        refill();
+        this.ratePerNano = ratePerSecond / 1e9;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,38 @@
+package com.djust.stripeconnectdemo.service.registry;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Connected accounts known to this platform, plus the Djust account id.
+ * Status is not stored here: it comes from Stripe.
+ * Implementations are safe for concurrent use from request threads.
+ */
+public interface AccountRegistry {
+
+    /** Adds an account id; returns true if it was not registered yet. */
+    boolean register(String accountId);
+
+    /** Adds many account ids at once (bulk sync); returns how many were not registered yet. */
+    default int registerAll(Collection<String> accountIds) {
+        int added = 0;
+        for (String id : accountIds) {
+            if (register(id)) added++;
+        }
+        return added;
+    }
+
+    /** Removes an account id; returns true if it was registered. */
+    boolean remove(String accountId);
+
+    boolean contains(String accountId);
+
+    /** Snapshot of registered ids, in registration order. */
+    List<String> accountIds();
+
+    int size();
+
+    String getDjustAccountId();
+
+    void setDjustAccountId(String accountId);
+}
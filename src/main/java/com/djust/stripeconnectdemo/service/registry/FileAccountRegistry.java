@@ -0,0 +1,261 @@
+package com.djust.stripeconnectdemo.service.registry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Durable registry: an append-only, memory-mapped log replayed at startup.
+ * - record: [op:1][length:2][utf-8 id], op written last so a torn append is ignored on replay
+ * - ops: ADD, REMOVE, DJUST (empty id clears it); a zero op byte marks the end of the log
+ * - reads are served from an in-memory copy, updated only once the record is forced to disk
+ * - registerAll() writes a whole page of ids with two forces instead of two per id
+ * - the log is rewritten with only live entries once it holds too many dead records
+ */
+public class FileAccountRegistry implements AccountRegistry, Closeable {
+
+    private static final byte END = 0;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte DJUST = 3;
+    private static final int HEADER = 3;
+    private static final int MIN_MAPPED = 1 << 20; // 1 MiB, grows by doubling
+
+    private final Path path;
+    private final int compactionThreshold;
+    private final InMemoryAccountRegistry state = new InMemoryAccountRegistry();
+    private final Object writeLock = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer log;
+    private int records;
+
+    public FileAccountRegistry(Path path, int compactionThreshold) throws IOException {
+        this.path = path;
+        this.compactionThreshold = compactionThreshold;
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        open();
+        replay();
+    }
+
+    @Override
+    public boolean register(String accountId) {
+        synchronized (writeLock) {
+            if (state.contains(accountId)) return false;
+            append(ADD, accountId);
+            state.register(accountId);
+            compactIfNeeded();
+            return true;
+        }
+    }
+
+    @Override
+    public int registerAll(Collection<String> accountIds) {
+        synchronized (writeLock) {
+            // New ids only, written and forced before any of them becomes visible
+            Set<String> ids = new LinkedHashSet<>();
+            List<byte[]> added = new ArrayList<>(accountIds.size());
+            int bytes = 0;
+            for (String id : accountIds) {
+                byte[] b = id.getBytes(StandardCharsets.UTF_8);
+                if (b.length > 0xFFFF) throw new IllegalArgumentException("Account id too long");
+                if (state.contains(id) || !ids.add(id)) continue;
+                added.add(b);
+                bytes += HEADER + b.length;
+            }
+            if (added.isEmpty()) return 0;
+            try {
+                ensureCapacity(bytes + 1);
+                // Same commit protocol as append(), batched: bodies first, then the op bytes
+                int start = log.position();
+                int pos = start;
+                for (byte[] b : added) {
+                    log.putShort(pos + 1, (short) b.length);
+                    log.put(pos + HEADER, b);
+                    pos += HEADER + b.length;
+                }
+                log.put(pos, END);
+                log.force(start, pos - start + 1);
+                pos = start;
+                for (byte[] b : added) {
+                    log.put(pos, ADD);
+                    pos += HEADER + b.length;
+                }
+                log.force(start, pos - start);
+                log.position(pos);
+                records += added.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to append to account registry " + path, e);
+            }
+            ids.forEach(state::register);
+            compactIfNeeded();
+            return added.size();
+        }
+    }
+
+    @Override
+    public boolean remove(String accountId) {
+        synchronized (writeLock) {
+            if (!state.contains(accountId)) return false;
+            append(REMOVE, accountId);
+            state.remove(accountId);
+            compactIfNeeded();
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(String accountId) {
+        return state.contains(accountId);
+    }
+
+    @Override
+    public List<String> accountIds() {
+        return state.accountIds();
+    }
+
+    @Override
+    public int size() {
+        return state.size();
+    }
+
+    @Override
+    public String getDjustAccountId() {
+        return state.getDjustAccountId();
+    }
+
+    @Override
+    public void setDjustAccountId(String accountId) {
+        synchronized (writeLock) {
+            if (Objects.equals(state.getDjustAccountId(), accountId)) return;
+            append(DJUST, accountId == null ? "" : accountId);
+            state.setDjustAccountId(accountId);
+            compactIfNeeded();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            log.force();
+            channel.close();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(MIN_MAPPED, channel.size()));
+    }
+
+    private void replay() {
+        int pos = 0;
+        records = 0;
+        while (pos + HEADER <= log.limit()) {
+            byte op = log.get(pos);
+            if (op == END) break;
+            int len = Short.toUnsignedInt(log.getShort(pos + 1));
+            boolean known = op == ADD || op == REMOVE || op == DJUST;
+            if (!known || pos + HEADER + len > log.limit()) break; // unknown op or corrupt tail: drop the rest
+            byte[] bytes = new byte[len];
+            log.get(pos + HEADER, bytes);
+            String id = new String(bytes, StandardCharsets.UTF_8);
+            switch (op) {
+                case ADD -> state.register(id);
+                case REMOVE -> state.remove(id);
+                case DJUST -> state.setDjustAccountId(id.isEmpty() ? null : id);
+                default -> throw new IllegalStateException("Unknown registry op " + op);
+            }
+            pos += HEADER + len;
+            records++;
+        }
+        log.position(pos);
+        // clear anything after the last valid record so future replays stop here
+        for (int i = pos; i < Math.min(log.limit(), pos + HEADER); i++) log.put(i, END);
+    }
+
+    private void append(byte op, String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Account id too long");
+        try {
+            ensureCapacity(HEADER + bytes.length + 1);
+            int pos = log.position();
+            log.putShort(pos + 1, (short) bytes.length);
+            log.put(pos + HEADER, bytes);
+            log.put(pos + HEADER + bytes.length, END);
+            log.force(pos + 1, HEADER - 1 + bytes.length + 1);
+            log.put(pos, op); // commit
+            log.force(pos, 1);
+            log.position(pos + HEADER + bytes.length);
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to account registry " + path, e);
+        }
+    }
+
+    /** Called once the in-memory state includes the records just appended: compaction rewrites from it. */
+    private void compactIfNeeded() {
+        if (records <= compactionThreshold || records <= 2 * (state.size() + 1)) return;
+        try {
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to compact account registry " + path, e);
+        }
+    }
+
+    private void ensureCapacity(int needed) throws IOException {
+        if (log.remaining() >= needed) return;
+        int pos = log.position();
+        long size = Math.max((long) log.capacity() * 2, pos + needed);
+        log.force();
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        log.position(pos);
+    }
+
+    /** Rewrites the log with live entries only, then swaps it in atomically. */
+    private void compact() throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        List<String> ids = state.accountIds();
+        String djust = state.getDjustAccountId();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            for (String id : ids) buf = write(out, buf, ADD, id);
+            if (djust != null) buf = write(out, buf, DJUST, djust);
+            buf.flip();
+            while (buf.hasRemaining()) out.write(buf);
+            out.force(true);
+        }
+        log.force();
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        records = ids.size() + (djust != null ? 1 : 0);
+        int pos = 0;
+        while (pos + HEADER <= log.limit() && log.get(pos) != END) pos += HEADER + Short.toUnsignedInt(log.getShort(pos + 1));
+        log.position(pos);
+    }
+
+    private static ByteBuffer write(FileChannel out, ByteBuffer buf, byte op, String id) throws IOException {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (buf.remaining() < HEADER + bytes.length) {
+            buf.flip();
+            while (buf.hasRemaining()) out.write(buf);
+            buf.clear();
+        }
+        buf.put(op).putShort((short) bytes.length).put(bytes);
+        return buf;
+    }
+}
@@ -0,0 +1,67 @@
+package com.djust.stripeconnectdemo.service.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent in-memory registry (lost on restart).
+ * - index: accountId -> registration sequence (ConcurrentHashMap, per-bin locking)
+ * - order: sequence -> accountId (ConcurrentSkipListMap) to list ids in registration order
+ */
+public class InMemoryAccountRegistry implements AccountRegistry {
+
+    private final ConcurrentHashMap<String, Long> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, String> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile String djustAccountId;
+
+    @Override
+    public boolean register(String accountId) {
+        long seq = sequence.incrementAndGet();
+        if (index.putIfAbsent(accountId, seq) != null) return false;
+        order.put(seq, accountId);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String accountId) {
+        Long seq = index.remove(accountId);
+        if (seq == null) return false;
+        order.remove(seq);
+        return true;
+    }
+
+    @Override
+    public boolean contains(String accountId) {
+        return index.containsKey(accountId);
+    }
+
+    @Override
+    public List<String> accountIds() {
+        List<String> ids = new ArrayList<>(index.size());
+        for (Map.Entry<Long, String> e : order.entrySet()) {
+            // skip entries left behind by a remove racing a register of the same id
+            if (e.getKey().equals(index.get(e.getValue()))) ids.add(e.getValue());
+        }
+        return ids;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public String getDjustAccountId() {
+        return djustAccountId;
+    }
+
+    @Override
+    public void setDjustAccountId(String accountId) {
+        this.djustAccountId = accountId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.djust.stripeconnectdemo.service.state;
+
+import com.djust.stripeconnectdemo.service.account.AccountStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One connected account in the dashboard state; {@code error} alone when its status could not be read,
+ * with the last known status and {@code stale: true} when there is one.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AccountView(String id, Boolean charges_enabled, Boolean payouts_enabled, List<String> requirements_due, String error, Boolean stale) {
+
+    public static AccountView of(AccountStatus status) {
+        return new AccountView(status.accountId(), status.chargesEnabled(), status.payoutsEnabled(), status.requirementsDue(), null, null);
+    }
+
+    public static AccountView failed(String accountId, String error) {
+        return new AccountView(accountId, null, null, null, error, null);
+    }
+
+    public static AccountView stale(AccountStatus last, String error) {
+        return new AccountView(last.accountId(), last.chargesEnabled(), last.payoutsEnabled(), last.requirementsDue(), error, true);
+    }
+}
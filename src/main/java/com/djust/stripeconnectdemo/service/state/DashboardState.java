@@ -0,0 +1,20 @@
+package com.djust.stripeconnectdemo.service.state;
+
+import com.djust.stripeconnectdemo.service.balance.CurrencyAmounts;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * GET /api/state body (and SSE "snapshot" event).
+ * djust and balances are omitted when unset or unavailable.
+ * stale: true when some of it is last known data served while Stripe is unavailable (accounts carry their own flag).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DashboardState(List<AccountView> accounts,
+                             DjustView djust,
+                             String rootUrl,
+                             CurrencyAmounts platform_balance,
+                             CurrencyAmounts platform_balance_pending,
+                             Boolean stale) {
+}
@@ -0,0 +1,21 @@
+package com.djust.stripeconnectdemo.service.state;
+
+import com.djust.stripeconnectdemo.service.account.AccountStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** The Djust account in the dashboard state; same error / stale rules as {@link AccountView}. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DjustView(String id, Boolean charges_enabled, Boolean payouts_enabled, String error, Boolean stale) {
+
+    public static DjustView of(AccountStatus status) {
+        return new DjustView(status.accountId(), status.chargesEnabled(), status.payoutsEnabled(), null, null);
+    }
+
+    public static DjustView failed(String accountId, String error) {
+        return new DjustView(accountId, null, null, error, null);
+    }
+
+    public static DjustView stale(AccountStatus last, String error) {
+        return new DjustView(last.accountId(), last.chargesEnabled(), last.payoutsEnabled(), error, true);
+    }
+}
@@ -0,0 +1,120 @@
+package com.djust.stripeconnectdemo.service.state;
+
+import com.djust.stripeconnectdemo.service.balance.CurrencyAmounts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Incremental change between two StateService snapshots, sent to SSE subscribers instead of the full state:
+ * - accounts: {added: [account...], removed: [id...], changed: [{id, changed fields...}]}
+ * - djust: changed fields, or null when the Djust account was unset
+ * - rootUrl: new value
+ * - platform_balance / platform_balance_pending: {currency: amount}, null amount = currency gone
+ * - stale: new value (null = fresh again)
+ * Keys are omitted when unchanged, changed fields set to null were removed; an empty map means nothing changed.
+ */
+public final class StateDiff {
+
+    private StateDiff() {}
+
+    public static Map<String, Object> diff(DashboardState prev, DashboardState next) {
+        Map<String, Object> out = new LinkedHashMap<>();
+
+        Map<String, Object> accounts = accounts(prev.accounts(), next.accounts());
+        if (!accounts.isEmpty()) out.put("accounts", accounts);
+
+        if (next.djust() == null) {
+            if (prev.djust() != null) out.put("djust", null);
+        } else {
+            Map<String, Object> changed = fields(prev.djust() == null ? new DjustView(null, null, null, null, null) : prev.djust(), next.djust());
+            if (!changed.isEmpty()) out.put("djust", changed);
+        }
+
+        if (!Objects.equals(prev.rootUrl(), next.rootUrl())) out.put("rootUrl", next.rootUrl());
+
+        Map<String, Object> balance = amounts(prev.platform_balance(), next.platform_balance());
+        if (!balance.isEmpty()) out.put("platform_balance", balance);
+        Map<String, Object> pending = amounts(prev.platform_balance_pending(), next.platform_balance_pending());
+        if (!pending.isEmpty()) out.put("platform_balance_pending", pending);
+
+        if (!Objects.equals(prev.stale(), next.stale())) out.put("stale", next.stale());
+        return out;
+    }
+
+    private static Map<String, Object> accounts(List<AccountView> prev, List<AccountView> next) {
+        Map<String, AccountView> before = new HashMap<>(prev.size() * 2);
+        for (AccountView a : prev) before.put(a.id(), a);
+
+        List<AccountView> added = new ArrayList<>();
+        List<Map<String, Object>> changed = new ArrayList<>();
+        Set<String> seen = new HashSet<>(next.size() * 2);
+        for (AccountView a : next) {
+            seen.add(a.id());
+            AccountView old = before.get(a.id());
+            if (old == null) {
+                added.add(a);
+            } else if (!old.equals(a)) {
+                Map<String, Object> c = new LinkedHashMap<>();
+                c.put("id", a.id());
+                c.putAll(fields(old, a));
+                changed.add(c);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (AccountView a : prev) {
+            if (!seen.contains(a.id())) removed.add(a.id());
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (!added.isEmpty()) out.put("added", added);
+        if (!removed.isEmpty()) out.put("removed", removed);
+        if (!changed.isEmpty()) out.put("changed", changed);
+        return out;
+    }
+
+    private static Map<String, Object> fields(AccountView prev, AccountView next) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        field(out, "charges_enabled", prev.charges_enabled(), next.charges_enabled());
+        field(out, "payouts_enabled", prev.payouts_enabled(), next.payouts_enabled());
+        field(out, "requirements_due", prev.requirements_due(), next.requirements_due());
+        field(out, "error", prev.error(), next.error());
+        field(out, "stale", prev.stale(), next.stale());
+        return out;
+    }
+
+    private static Map<String, Object> fields(DjustView prev, DjustView next) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        field(out, "id", prev.id(), next.id());
+        field(out, "charges_enabled", prev.charges_enabled(), next.charges_enabled());
+        field(out, "payouts_enabled", prev.payouts_enabled(), next.payouts_enabled());
+        field(out, "error", prev.error(), next.error());
+        field(out, "stale", prev.stale(), next.stale());
+        return out;
+    }
+
+    private static void field(Map<String, Object> out, String name, Object prev, Object next) {
+        if (!Objects.equals(prev, next)) out.put(name, next);
+    }
+
+    private static Map<String, Object> amounts(CurrencyAmounts prev, CurrencyAmounts next) {
+        // A failed balance read leaves the field unset: keep the last known amounts on the client
+        if (next == null || next == prev) return Map.of();
+        Map<String, Long> before = prev == null ? Map.of() : prev.asMap();
+        Map<String, Long> after = next.asMap();
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : after.entrySet()) {
+            if (!Objects.equals(before.get(e.getKey()), e.getValue())) out.put(e.getKey(), e.getValue());
+        }
+        for (String currency : before.keySet()) {
+            if (!after.containsKey(currency)) out.put(currency, null);
+        }
+        return out;
+    }
+}
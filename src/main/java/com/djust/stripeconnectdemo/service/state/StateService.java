@@ -0,0 +1,95 @@
+package com.djust.stripeconnectdemo.service.state;
+
+import com.djust.stripeconnectdemo.service.FanOutExecutor;
+import com.djust.stripeconnectdemo.service.account.AccountStatus;
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.balance.BalanceSnapshot;
+import com.djust.stripeconnectdemo.service.balance.CurrencyAmounts;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.stripe.StripeOutage;
+import com.stripe.StripeClient;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dashboard state shared by GET /api/state and the SSE stream.
+ * Account status comes from webhook-fed snapshots; missing/stale ones and the balance are fetched in parallel.
+ * A read that fails because Stripe is down or slow (connection error, 5xx, timeout, open circuit) falls back to the
+ * last known status/balance, marked stale, so an outage degrades the dashboard instead of blanking it; other errors
+ * (deleted account, bad key) are reported as they are.
+ * One instance per tenant (see TenantConfig).
+ */
+@RequiredArgsConstructor
+public class StateService {
+
+    private final StripeClient stripe;
+    private final String rootUrl;
+    private final AccountRegistry registry;
+    private final FanOutExecutor fanOut;
+    private final BalanceService balanceService;
+    private final AccountStatusCache statusCache;
+
+    /** Current dashboard state: accounts, Djust account, rootUrl and platform balance. */
+    public DashboardState snapshot() {
+        // Account status comes from webhook-fed snapshots; missing/stale ones and the balance are fetched in parallel
+        FanOutExecutor.Batch batch = fanOut.batch();
+        String djustId = registry.getDjustAccountId();
+        boolean hasDjust = djustId != null && !djustId.isBlank();
+        FanOutExecutor.Call<BalanceSnapshot> balanceCall = batch.submit(() -> balanceService.get());
+        FanOutExecutor.Call<AccountStatus> djustCall = hasDjust ? statusCall(batch, djustId) : null;
+        List<String> ids = registry.accountIds();
+        List<FanOutExecutor.Call<AccountStatus>> accountCalls = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            accountCalls.add(statusCall(batch, id));
+        }
+        batch.await();
+
+        boolean stale = false;
+        List<AccountView> accounts = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            FanOutExecutor.Outcome<AccountStatus> o = accountCalls.get(i).outcome();
+            AccountStatus last = outage(o) ? statusCache.lastKnown(ids.get(i)) : null;
+            if (o.ok()) accounts.add(AccountView.of(o.value()));
+            else if (last != null) accounts.add(AccountView.stale(last, o.error()));
+            else accounts.add(AccountView.failed(ids.get(i), o.error()));
+            stale |= last != null;
+        }
+
+        DjustView djust = null;
+        if (hasDjust) {
+            FanOutExecutor.Outcome<AccountStatus> o = djustCall.outcome();
+            AccountStatus last = outage(o) ? statusCache.lastKnown(djustId) : null;
+            if (o.ok()) djust = DjustView.of(o.value());
+            else if (last != null) djust = DjustView.stale(last, o.error());
+            else djust = DjustView.failed(djustId, o.error());
+            stale |= last != null;
+        }
+
+        // Also return platform balance summary per currency (available and pending)
+        CurrencyAmounts balance = null;
+        CurrencyAmounts pending = null;
+        FanOutExecutor.Outcome<BalanceSnapshot> bo = balanceCall.outcome();
+        BalanceSnapshot b = bo.ok() ? bo.value() : outage(bo) ? balanceService.lastKnown() : null;
+        if (b != null) {
+            balance = b.available();
+            pending = b.pending();
+            stale |= !bo.ok();
+        }
+
+        return new DashboardState(accounts, djust, rootUrl, balance, pending, stale ? Boolean.TRUE : null);
+    }
+
+    private static boolean outage(FanOutExecutor.Outcome<?> o) {
+        return !o.ok() && (o.cause() instanceof TimeoutException || StripeOutage.isOutage(o.cause()));
+    }
+
+    private FanOutExecutor.Call<AccountStatus> statusCall(FanOutExecutor.Batch batch, String accountId) {
+        AccountStatus cached = statusCache.getFresh(accountId);
+        if (cached != null) return FanOutExecutor.Call.completed(cached);
+        return batch.submit(() -> statusCache.update(stripe.accounts().retrieve(accountId)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.djust.stripeconnectdemo.service.sweep;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process ledger of Djust fees not yet swept, per currency.
+ * - fed from completed PaymentIntents (application_fee_amount), each intent counted once
+ * - drained atomically by the sweeper, one batch per currency
+ * Lost on restart: fees of that window must be swept manually with POST /transfers/djust.
+ */
+public class FeeLedger {
+
+    /** Accrued fees for one currency since the last drain. */
+    public record Accrual(long amount, int payments, Instant firstAccruedAt) { }
+
+    private static final int SEEN_CAPACITY = 100_000;
+
+    private final ConcurrentHashMap<String, Accrual> accrued = new ConcurrentHashMap<>();
+    private final Set<String> seen = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_CAPACITY;
+        }
+    }));
+
+    /** Adds the fee of a completed PaymentIntent; replays of the same intent are ignored. */
+    public boolean accrue(String paymentIntentId, String currency, long fee) {
+        if (fee <= 0 || !seen.add(paymentIntentId)) return false;
+        accrued.merge(currency.toLowerCase(Locale.ROOT), new Accrual(fee, 1, Instant.now()),
+                (cur, inc) -> new Accrual(cur.amount() + inc.amount(), cur.payments() + 1, cur.firstAccruedAt()));
+        return true;
+    }
+
+    /** Removes and returns everything accrued for a currency, or null if nothing is pending. */
+    public Accrual drain(String currency) {
+        return accrued.remove(currency);
+    }
+
+    public Accrual peek(String currency) {
+        return accrued.get(currency);
+    }
+
+    public List<String> currencies() {
+        return List.copyOf(accrued.keySet());
+    }
+
+    public Map<String, Accrual> snapshot() {
+        return Map.copyOf(accrued);
+    }
+}
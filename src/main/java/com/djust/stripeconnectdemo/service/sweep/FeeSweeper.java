@@ -0,0 +1,209 @@
+package com.djust.stripeconnectdemo.service.sweep;
+
+import com.djust.stripeconnectdemo.service.account.AccountStatus;
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.balance.BalanceReservations;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.ledger.EarningsLedger;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Transfer;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.TransferCreateParams;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweeps accrued Djust fees as one aggregated Transfer per currency.
+ * - a currency is flushed once its total reaches minAmount or its oldest fee is maxInterval old
+ * - each batch keeps its idempotency key across retries, so a retried transfer is never doubled
+ * - the amount is reserved against the platform balance first (BalanceReservations, shared with /transfers/djust)
+ * - failures (Djust not ready, funds still pending, Stripe errors) retry with exponential backoff
+ * - completed transfers are recorded in the earnings ledger
+ */
+@Slf4j
+public class FeeSweeper implements AutoCloseable {
+
+    /** A drained batch waiting to be transferred. */
+    public static final class Sweep {
+        final String currency;
+        final long amount;
+        final int payments;
+        final String idempotencyKey;
+        int attempts;
+        Instant nextAttemptAt = Instant.now();
+        String lastError;
+
+        Sweep(String currency, FeeLedger.Accrual accrual) {
+            this.currency = currency;
+            this.amount = accrual.amount();
+            this.payments = accrual.payments();
+            this.idempotencyKey = "djust-fee-sweep-" + currency + "-" + UUID.randomUUID();
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("currency", currency);
+            out.put("amount", amount);
+            out.put("payments", payments);
+            out.put("attempts", attempts);
+            out.put("next_attempt_at", nextAttemptAt.toString());
+            if (lastError != null) out.put("last_error", lastError);
+            return out;
+        }
+    }
+
+    private final StripeClient stripe;
+    private final FeeLedger ledger;
+    private final EarningsLedger earnings;
+    private final AccountRegistry registry;
+    private final AccountStatusCache statusCache;
+    private final BalanceService balanceService;
+    private final BalanceReservations reservations;
+    private final long minAmount;
+    private final Duration maxInterval;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final Map<String, Sweep> pending = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> lastTransfers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("fee-sweep").daemon().factory());
+
+    public FeeSweeper(StripeClient stripe, FeeLedger ledger, EarningsLedger earnings, AccountRegistry registry, AccountStatusCache statusCache,
+                      BalanceService balanceService, BalanceReservations reservations, long minAmount, Duration maxInterval, Duration retryBackoff, Duration maxBackoff) {
+        this.stripe = stripe;
+        this.ledger = ledger;
+        this.earnings = earnings;
+        this.registry = registry;
+        this.statusCache = statusCache;
+        this.balanceService = balanceService;
+        this.reservations = reservations;
+        this.minAmount = minAmount;
+        this.maxInterval = maxInterval;
+        this.retryBackoff = retryBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public void start(Duration tick) {
+        scheduler.scheduleWithFixedDelay(this::tick, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /** Drains every currency regardless of thresholds and attempts the transfers now. */
+    public synchronized List<Map<String, Object>> flushNow() {
+        for (String currency : ledger.currencies()) drainInto(currency);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Sweep sweep : List.copyOf(pending.values())) {
+            sweep.nextAttemptAt = Instant.now();
+            attempt(sweep);
+            Map<String, Object> transfer = pending.containsKey(sweep.currency) ? null : lastTransfers.get(sweep.currency);
+            out.add(transfer != null ? transfer : sweep.describe());
+        }
+        return out;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> accrued = new LinkedHashMap<>();
+        ledger.snapshot().forEach((currency, a) -> accrued.put(currency, Map.of("amount", a.amount(), "payments", a.payments())));
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("accrued", accrued);
+        out.put("pending", pending.values().stream().map(Sweep::describe).toList());
+        out.put("last_transfers", Map.copyOf(lastTransfers));
+        return out;
+    }
+
+    synchronized void tick() {
+        try {
+            Instant now = Instant.now();
+            for (String currency : ledger.currencies()) {
+                FeeLedger.Accrual a = ledger.peek(currency);
+                if (a == null || pending.containsKey(currency)) continue;
+                if (a.amount() >= minAmount || !a.firstAccruedAt().plus(maxInterval).isAfter(now)) drainInto(currency);
+            }
+            for (Sweep sweep : List.copyOf(pending.values())) {
+                if (!sweep.nextAttemptAt.isAfter(now)) attempt(sweep);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Fee sweep tick failed", e);
+        }
+    }
+
+    private void drainInto(String currency) {
+        if (pending.containsKey(currency)) return; // one batch per currency in flight; new fees wait for the next one
+        FeeLedger.Accrual a = ledger.drain(currency);
+        if (a != null) pending.put(currency, new Sweep(currency, a));
+    }
+
+    private void attempt(Sweep sweep) {
+        sweep.attempts++;
+        try {
+            String djustId = registry.getDjustAccountId();
+            if (djustId == null || djustId.isBlank()) throw new IllegalStateException("Djust account not set");
+            AccountStatus dj = statusCache.getFresh(djustId);
+            if (dj == null) dj = statusCache.update(stripe.accounts().retrieve(djustId));
+            if (!dj.transfersActive()) throw new IllegalStateException("Djust transfers capability not active");
+            // Reserved like /transfers/djust so the two never over-commit the balance together
+            BalanceReservations.Reservation reservation = reservations.tryReserve(sweep.currency, sweep.amount);
+            if (reservation == null) {
+                throw new IllegalStateException("Available balance too low (available=" + reservations.available(sweep.currency)
+                        + ", sweep=" + sweep.amount + ")");
+            }
+
+            TransferCreateParams params = TransferCreateParams.builder()
+                    .setAmount(sweep.amount)
+                    .setCurrency(sweep.currency)
+                    .setDestination(djustId)
+                    .setDescription("Djust fee sweep (" + sweep.payments + " payments)")
+                    .putMetadata("sweep_key", sweep.idempotencyKey)
+                    .build();
+            Transfer transfer;
+            try {
+                transfer = stripe.transfers().create(params, RequestOptions.builder().setIdempotencyKey(sweep.idempotencyKey).build());
+            } catch (StripeException | RuntimeException e) {
+                reservation.failed(e);
+                throw e;
+            }
+            reservation.commit();
+            pending.remove(sweep.currency);
+            balanceService.invalidate();
+            lastTransfers.put(sweep.currency, Map.of(
+                    "id", transfer.getId(),
+                    "amount", transfer.getAmount(),
+                    "currency", transfer.getCurrency(),
+                    "payments", sweep.payments,
+                    "created_at", Instant.now().toString()));
+            log.info("Swept {} {} of Djust fees ({} payments) as {}", sweep.amount, sweep.currency, sweep.payments, transfer.getId());
+            recordTransfer(transfer, djustId);
+        } catch (Exception e) {
+            sweep.lastError = e.getMessage();
+            long backoff = Math.min(maxBackoff.toMillis(), retryBackoff.toMillis() << Math.min(sweep.attempts - 1, 20));
+            sweep.nextAttemptAt = Instant.now().plusMillis(backoff);
+            log.warn("Fee sweep {} {} failed (attempt {}), retrying in {} ms: {}", sweep.amount, sweep.currency, sweep.attempts, backoff, e.getMessage());
+        }
+    }
+
+    private void recordTransfer(Transfer transfer, String djustId) {
+        try {
+            earnings.recordTransfer(transfer.getId(), djustId, transfer.getCurrency(), transfer.getAmount(), transfer.getCreated());
+        } catch (RuntimeException e) {
+            // The transfer.created webhook records it later
+            log.warn("Unable to record transfer {} in the earnings ledger: {}", transfer.getId(), e.getMessage());
+        }
+    }
+}
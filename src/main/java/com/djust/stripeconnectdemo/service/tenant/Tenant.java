@@ -0,0 +1,70 @@
+package com.djust.stripeconnectdemo.service.tenant;
+
+import com.djust.stripeconnectdemo.service.FanOutExecutor;
+import com.djust.stripeconnectdemo.service.account.AccountLinkService;
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.account.AccountSync;
+import com.djust.stripeconnectdemo.service.balance.BalanceReservations;
+import com.djust.stripeconnectdemo.service.balance.BalanceService;
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreakers;
+import com.djust.stripeconnectdemo.service.fee.FeeEngine;
+import com.djust.stripeconnectdemo.service.ledger.EarningsLedger;
+import com.djust.stripeconnectdemo.service.ledger.FeeReconciler;
+import com.djust.stripeconnectdemo.service.outbox.PaymentOutbox;
+import com.djust.stripeconnectdemo.service.payment.PaymentBatchService;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentCache;
+import com.djust.stripeconnectdemo.service.payment.PaymentService;
+import com.djust.stripeconnectdemo.service.ratelimit.AdaptiveRateLimiter;
+import com.djust.stripeconnectdemo.service.registry.AccountRegistry;
+import com.djust.stripeconnectdemo.service.state.StateService;
+import com.djust.stripeconnectdemo.service.sweep.FeeLedger;
+import com.djust.stripeconnectdemo.service.sweep.FeeSweeper;
+import com.stripe.StripeClient;
+import com.stripe.net.HttpClient;
+
+/**
+ * One marketplace platform served by this process: its own Stripe key, connection pool and client, rate limiter, circuit breakers, fan-out
+ * permits, account registry (connected accounts + Djust account), caches, balance reservations, fee schedule, payments (sync, batch and outbox),
+ * fee sweep and earnings ledger.
+ * Nothing here is shared with other tenants, so a busy or throttled platform cannot slow the others down.
+ */
+public record Tenant(String id,
+                     String rootUrl,
+                     String publishableKey,
+                     String webhookSecret,
+                     HttpClient transport,
+                     StripeClient stripe,
+                     AdaptiveRateLimiter rateLimiter,
+                     CircuitBreakers breakers,
+                     FanOutExecutor fanOut,
+                     AccountRegistry registry,
+                     AccountStatusCache statusCache,
+                     AccountLinkService links,
+                     AccountSync accountSync,
+                     BalanceService balance,
+                     BalanceReservations reservations,
+                     FeeEngine fees,
+                     PaymentIntentCache intents,
+                     PaymentService payments,
+                     PaymentBatchService batches,
+                     PaymentOutbox outbox,
+                     StateService state,
+                     FeeLedger feeLedger,
+                     FeeSweeper sweeper,
+                     EarningsLedger earnings,
+                     FeeReconciler reconciler) implements AutoCloseable {
+
+    @Override
+    public void close() throws Exception {
+        accountSync.close();
+        reconciler.close();
+        sweeper.close();
+        reservations.close();
+        outbox.close();
+        earnings.close();
+        fanOut.close();
+        fees.close();
+        if (registry instanceof AutoCloseable c) c.close();
+        if (transport instanceof AutoCloseable c) c.close();
+    }
+}
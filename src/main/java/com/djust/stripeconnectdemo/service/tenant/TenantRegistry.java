@@ -0,0 +1,54 @@
+package com.djust.stripeconnectdemo.service.tenant;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tenants configured at startup (stripe.* is the default tenant, stripe.tenants.<id>.* the others).
+ * Immutable after construction: lookups are a plain map read.
+ */
+@Slf4j
+public class TenantRegistry implements AutoCloseable {
+
+    private final Map<String, Tenant> tenants;
+    private final Tenant defaultTenant;
+
+    public TenantRegistry(Map<String, Tenant> tenants, String defaultId) {
+        this.tenants = Collections.unmodifiableMap(new LinkedHashMap<>(tenants));
+        this.defaultTenant = tenants.get(defaultId);
+        if (defaultTenant == null) throw new IllegalStateException("Default tenant '" + defaultId + "' is not configured");
+    }
+
+    /** Tenant by id; null or blank selects the default tenant. */
+    public Tenant get(String id) {
+        if (id == null || id.isBlank()) return defaultTenant;
+        Tenant tenant = tenants.get(id);
+        if (tenant == null) throw new BusinessException(ErrorCode.NOT_FOUND, "Unknown tenant '" + id + "'");
+        return tenant;
+    }
+
+    public Tenant defaultTenant() {
+        return defaultTenant;
+    }
+
+    public Collection<Tenant> all() {
+        return tenants.values();
+    }
+
+    @Override
+    public void close() {
+        for (Tenant t : tenants.values()) {
+            try {
+                t.close();
+            } catch (Exception e) {
+                log.warn("Failed to close tenant {}: {}", t.id(), e.getMessage());
+            }
+        }
+    }
+}
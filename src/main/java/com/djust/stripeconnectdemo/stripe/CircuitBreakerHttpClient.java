@@ -0,0 +1,81 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreaker;
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreakers;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+
+import java.time.Duration;
+
+/**
+ * Stripe transport decorator under pacing and retries: fails fast with {@link CircuitOpenException} while the circuit
+ * of the call's operation family is open, instead of waiting for Stripe's timeouts.
+ * - family = resource of the call: GET /v1/accounts/acct_1 -> accounts, POST /v1/transfers -> transfers
+ * - one outcome per HTTP attempt, timed on the exchange itself: rate-limiter queueing and retry backoff are not
+ *   counted, so our own throttling under load cannot open a circuit
+ * - a failure is a connection error, a 5xx, or an attempt slower than slowCallThreshold;
+ *   4xx and 429 are Stripe answering, not failing
+ * - a refused attempt is not retried by PacedHttpClient
+ */
+public class CircuitBreakerHttpClient extends HttpClient {
+
+    private final HttpClient delegate;
+    private final CircuitBreakers breakers;
+    private final long slowCallNanos;
+
+    public CircuitBreakerHttpClient(HttpClient delegate, CircuitBreakers breakers, Duration slowCallThreshold) {
+        this.delegate = delegate;
+        this.breakers = breakers;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        CircuitBreaker breaker = breakerOf(request);
+        CircuitBreaker.Permit permit = acquire(breaker);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            StripeResponse response = delegate.request(request);
+            success = response.code() < 500;
+            return response;
+        } finally {
+            breaker.onResult(permit, success && System.nanoTime() - start < slowCallNanos);
+        }
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+        CircuitBreaker breaker = breakerOf(request);
+        CircuitBreaker.Permit permit = acquire(breaker);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            StripeResponseStream response = delegate.requestStream(request);
+            success = response.code() < 500;
+            return response;
+        } finally {
+            breaker.onResult(permit, success && System.nanoTime() - start < slowCallNanos);
+        }
+    }
+
+    private CircuitBreaker breakerOf(StripeRequest request) {
+        return breakers.get(familyOf(request.method().name(), request.url().getPath()));
+    }
+
+    private static CircuitBreaker.Permit acquire(CircuitBreaker breaker) throws CircuitOpenException {
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == null) throw new CircuitOpenException(breaker.family(), breaker.retryAfterSeconds());
+        return permit;
+    }
+
+    /** accounts.retrieve -> accounts, paymentIntents.create -> paymentIntents (see MeteredHttpClient.operationOf). */
+    static String familyOf(String method, String path) {
+        String operation = MeteredHttpClient.operationOf(method, path);
+        int dot = operation.indexOf('.');
+        return dot < 0 ? operation : operation.substring(0, dot);
+    }
+}
@@ -0,0 +1,27 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.stripe.exception.ApiConnectionException;
+
+/**
+ * Stripe call refused locally because the circuit of its operation family is open: the request never left the process.
+ * A connection error to the SDK and to retrying callers (outbox); mapped to 503 STRIPE_UNAVAILABLE for API clients.
+ */
+public class CircuitOpenException extends ApiConnectionException {
+
+    private final String family;
+    private final long retryAfterSeconds;
+
+    public CircuitOpenException(String family, long retryAfterSeconds) {
+        super("Stripe " + family + " calls are failing, circuit open (retry in " + retryAfterSeconds + "s)");
+        this.family = family;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,165 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpContent;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stripe transport on the JDK java.net.http client: one keep-alive connection pool per instance.
+ * - connections (HTTP/1.1) or streams (HTTP/2, negotiated by ALPN) are reused across calls, so the TLS
+ *   handshake is paid once per connection instead of whenever the JVM-wide HttpURLConnection cache misses
+ * - at most maxConnections requests in flight; with HTTP/1.1 that bounds the open connections. A streamed response
+ *   holds its permit until its body is closed, since it holds the connection until then
+ * - request headers are the SDK's own (User-Agent and X-Stripe-Client-User-Agent with app info, telemetry)
+ * - idle connections are closed after jdk.httpclient.keepalive.timeout (set by StripeHttpConfig)
+ */
+public class JdkHttpClient extends HttpClient implements AutoCloseable {
+
+    // Set by the JDK client itself; rejected if passed as request headers
+    private static final Set<String> RESTRICTED = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final java.net.http.HttpClient client;
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final Duration readTimeout;
+
+    public JdkHttpClient(java.net.http.HttpClient.Version version, int maxConnections, Duration connectTimeout, Duration readTimeout) {
+        if (maxConnections <= 0) throw new IllegalArgumentException("maxConnections must be > 0");
+        this.client = java.net.http.HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .followRedirects(java.net.http.HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        HttpRequest httpRequest = toHttpRequest(request);
+        acquire();
+        try {
+            HttpResponse<String> response = send(request, httpRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            return new StripeResponse(response.statusCode(), headers(response), response.body());
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+        HttpRequest httpRequest = toHttpRequest(request);
+        acquire();
+        boolean streaming = false;
+        try {
+            HttpResponse<InputStream> response = send(request, httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+            StripeResponseStream stream = new StripeResponseStream(response.statusCode(), headers(response), new PermitStream(response.body()));
+            streaming = true;
+            return stream;
+        } finally {
+            if (!streaming) permits.release();
+        }
+    }
+
+    /** Requests currently holding a connection (or HTTP/2 stream), for pool sizing. */
+    public int inFlight() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    private void acquire() throws ApiConnectionException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted while waiting for a Stripe connection", e);
+        }
+    }
+
+    private <T> HttpResponse<T> send(StripeRequest request, HttpRequest httpRequest, HttpResponse.BodyHandler<T> handler) throws ApiConnectionException {
+        try {
+            return client.send(httpRequest, handler);
+        } catch (IOException e) {
+            throw new ApiConnectionException(String.format(
+                    "IOException during API request to Stripe (%s): %s", request.url(), e.getMessage()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted during API request to Stripe (" + request.url() + ")", e);
+        }
+    }
+
+    /** Body of a streamed response: gives the permit back once, when closed. */
+    private final class PermitStream extends FilterInputStream {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) permits.release();
+            }
+        }
+    }
+
+    private HttpRequest toHttpRequest(StripeRequest request) throws ApiConnectionException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(request.url().toURI()).timeout(readTimeout);
+        } catch (URISyntaxException e) {
+            throw new ApiConnectionException("Invalid Stripe URL " + request.url(), e);
+        }
+        // Same headers as the SDK's HttpURLConnectionClient: the request's own plus the SDK-built user agents
+        HttpHeaders headers = request.headers().withAdditionalHeaders(Map.of(
+                "User-Agent", List.of(buildUserAgentString()),
+                "X-Stripe-Client-User-Agent", List.of(buildXStripeClientUserAgentString())));
+        for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+            if (RESTRICTED.contains(header.getKey().toLowerCase(Locale.ROOT))) continue;
+            for (String value : header.getValue()) builder.header(header.getKey(), value);
+        }
+        HttpContent content = request.content();
+        if (content == null) {
+            builder.method(request.method().name(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.setHeader("Content-Type", content.contentType());
+            builder.method(request.method().name(), HttpRequest.BodyPublishers.ofByteArray(content.byteArrayContent()));
+        }
+        return builder.build();
+    }
+
+    private static HttpHeaders headers(HttpResponse<?> response) {
+        return HttpHeaders.of(response.headers().map());
+    }
+}
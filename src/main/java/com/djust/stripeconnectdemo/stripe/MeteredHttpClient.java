@@ -0,0 +1,97 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Stripe transport decorator recording one timer sample per HTTP exchange:
+ * stripe.client.requests{tenant="default", operation="accounts.retrieve", status="200"}.
+ * Also counts the call against the current inbound request ({@link StripeCallContext}).
+ */
+public class MeteredHttpClient extends HttpClient {
+
+    private final HttpClient delegate;
+    private final MeterRegistry registry;
+    private final String tenant;
+
+    public MeteredHttpClient(HttpClient delegate, MeterRegistry registry, String tenant) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.tenant = tenant;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        StripeCallContext.record();
+        Timer.Sample sample = Timer.start(registry);
+        String status = "error";
+        try {
+            StripeResponse response = delegate.request(request);
+            status = Integer.toString(response.code());
+            return response;
+        } finally {
+            sample.stop(timer(request, status));
+        }
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+        StripeCallContext.record();
+        Timer.Sample sample = Timer.start(registry);
+        String status = "error";
+        try {
+            StripeResponseStream response = delegate.requestStream(request);
+            status = Integer.toString(response.code());
+            return response;
+        } finally {
+            sample.stop(timer(request, status));
+        }
+    }
+
+    private Timer timer(StripeRequest request, String status) {
+        return Timer.builder("stripe.client.requests")
+                .description("Stripe API calls (per HTTP attempt)")
+                .tag("tenant", tenant)
+                .tag("operation", operationOf(request.method().name(), request.url().getPath()))
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Maps a Stripe path to an SDK-like operation name, e.g.
+     * GET /v1/accounts/acct_1 -> accounts.retrieve, POST /v1/payment_intents -> paymentIntents.create,
+     * POST /v1/payment_intents/pi_1/confirm -> paymentIntents.confirm, GET /v1/balance -> balance.retrieve.
+     */
+    static String operationOf(String method, String path) {
+        String p = path.startsWith("/v1/") ? path.substring(4) : path.replaceFirst("^/", "");
+        String[] segments = p.split("/");
+        String resource = camel(segments[0]);
+        if (segments.length >= 3) return resource + "." + camel(segments[2]);
+        if (segments.length == 2) {
+            return resource + switch (method) {
+                case "GET" -> ".retrieve";
+                case "DELETE" -> ".delete";
+                default -> ".update";
+            };
+        }
+        if ("balance".equals(resource)) return "balance.retrieve";
+        return resource + ("GET".equals(method) ? ".list" : ".create");
+    }
+
+    private static String camel(String snake) {
+        StringBuilder out = new StringBuilder(snake.length());
+        boolean upper = false;
+        for (char c : snake.toCharArray()) {
+            if (c == '_') { upper = true; continue; }
+            out.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.djust.stripeconnectdemo.service.ratelimit.AdaptiveRateLimiter;
+import com.djust.stripeconnectdemo.service.ratelimit.AdaptiveRateLimiter.Priority;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.ApiResource;
+import com.stripe.net.HttpClient;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stripe transport decorator: paces every call through an {@link AdaptiveRateLimiter} and retries
+ * throttled (429), 5xx and connection failures with full-jitter exponential backoff.
+ * - payment and transfer calls run in the HIGH lane, everything else (dashboard reads) in LOW
+ * - non-GET requests get an Idempotency-Key before the first attempt, so a retry can never double-create
+ * - Stripe-Should-Retry: false is honoured; a call refused by an open circuit ({@link CircuitOpenException}) is not retried
+ */
+public class PacedHttpClient extends HttpClient {
+
+    private final HttpClient delegate;
+    private final AdaptiveRateLimiter limiter;
+    private final int maxRetries;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    public PacedHttpClient(HttpClient delegate, AdaptiveRateLimiter limiter, int maxRetries, Duration baseDelay, Duration maxDelay) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        StripeRequest req = withIdempotencyKey(request);
+        Priority priority = priorityOf(req);
+        for (int attempt = 0; ; attempt++) {
+            pace(priority);
+            StripeResponse response;
+            try {
+                response = delegate.request(req);
+            } catch (CircuitOpenException e) {
+                throw e;
+            } catch (ApiConnectionException e) {
+                if (attempt >= maxRetries) throw e;
+                sleep(attempt);
+                continue;
+            }
+            int code = response.code();
+            if (code == 429) limiter.onThrottled(); else limiter.onSuccess();
+            boolean retryable = code == 429 || code >= 500;
+            boolean stripeSaysNo = response.headers().firstValue("Stripe-Should-Retry").map("false"::equals).orElse(false);
+            if (!retryable || stripeSaysNo || attempt >= maxRetries) return response;
+            sleep(attempt);
+        }
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+        StripeRequest req = withIdempotencyKey(request);
+        pace(priorityOf(req));
+        return delegate.requestStream(req);
+    }
+
+    static Priority priorityOf(StripeRequest request) {
+        String path = request.url().getPath();
+        boolean moneyPath = path.startsWith("/v1/payment_intents") || path.startsWith("/v1/transfers");
+        return moneyPath ? Priority.HIGH : Priority.LOW;
+    }
+
+    private static StripeRequest withIdempotencyKey(StripeRequest request) throws StripeException {
+        if (request.method() == ApiResource.RequestMethod.GET) return request;
+        if (request.headers().firstValue("Idempotency-Key").isPresent()) return request;
+        return request.withAdditionalHeader("Idempotency-Key", UUID.randomUUID().toString());
+    }
+
+    private void pace(Priority priority) throws ApiConnectionException {
+        try {
+            limiter.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted while waiting for the Stripe rate limiter", e);
+        }
+    }
+
+    private void sleep(int attempt) throws ApiConnectionException {
+        long cap = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted during Stripe retry backoff", e);
+        }
+    }
+}
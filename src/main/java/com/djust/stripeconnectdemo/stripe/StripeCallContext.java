@@ -0,0 +1,54 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts Stripe calls made on behalf of the current inbound request.
+ * The counter is bound to the request thread and carried into fan-out tasks with {@link #wrap(Callable)}, or into
+ * the later dispatches and async work of the same request with {@link #begin(AtomicInteger)}.
+ */
+public final class StripeCallContext {
+
+    private static final ThreadLocal<AtomicInteger> CALLS = new ThreadLocal<>();
+
+    private StripeCallContext() { }
+
+    public static void begin() {
+        CALLS.set(new AtomicInteger());
+    }
+
+    /** Binds {@code calls} to this thread (a new counter when null) and returns it. */
+    public static AtomicInteger begin(AtomicInteger calls) {
+        AtomicInteger bound = calls != null ? calls : new AtomicInteger();
+        CALLS.set(bound);
+        return bound;
+    }
+
+    /** Ends the current scope and returns the number of Stripe calls it made. */
+    public static int end() {
+        AtomicInteger calls = CALLS.get();
+        CALLS.remove();
+        return calls != null ? calls.get() : 0;
+    }
+
+    static void record() {
+        AtomicInteger calls = CALLS.get();
+        if (calls != null) calls.incrementAndGet();
+    }
+
+    /** Runs {@code task} (on any thread) counting its calls against the caller's request. */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        AtomicInteger calls = CALLS.get();
+        if (calls == null) return task;
+        return () -> {
+            AtomicInteger previous = CALLS.get();
+            CALLS.set(calls);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) CALLS.set(previous); else CALLS.remove();
+            }
+        };
+    }
+}
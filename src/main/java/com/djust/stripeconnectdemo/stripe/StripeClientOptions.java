@@ -0,0 +1,36 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.stripe.Stripe;
+import com.stripe.net.StripeResponseGetterOptions;
+import lombok.Getter;
+
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+
+/**
+ * Per-client SDK options, so a StripeClient can be built around our own HttpClient
+ * (StripeClient.builder() does not accept a custom transport).
+ * Network retries are left to {@link PacedHttpClient}, hence maxNetworkRetries = 0.
+ */
+@Getter
+public class StripeClientOptions extends StripeResponseGetterOptions {
+
+    private final String apiKey;
+    private final String clientId = null;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int maxNetworkRetries = 0;
+    private final Proxy connectionProxy = null;
+    private final PasswordAuthentication proxyCredential = null;
+    private final String apiBase;
+    private final String filesBase = Stripe.UPLOAD_API_BASE;
+    private final String connectBase = Stripe.CONNECT_API_BASE;
+    private final String meterEventsBase = "https://meter-events.stripe.com";
+
+    public StripeClientOptions(String apiKey, String apiBase, int connectTimeout, int readTimeout) {
+        this.apiKey = apiKey;
+        this.apiBase = apiBase;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+}
@@ -0,0 +1,19 @@
+package com.djust.stripeconnectdemo.stripe;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.StripeException;
+
+/**
+ * Tells Stripe being unreachable or failing (connection errors, timeouts, 5xx, open circuit) from Stripe answering
+ * that the request itself is wrong (4xx): only the former is a reason to serve last known data.
+ */
+public final class StripeOutage {
+
+    private StripeOutage() { }
+
+    public static boolean isOutage(Throwable e) {
+        if (e instanceof ApiConnectionException || e instanceof ApiException) return true;
+        return e instanceof StripeException se && se.getStatusCode() != null && se.getStatusCode() >= 500;
+    }
+}
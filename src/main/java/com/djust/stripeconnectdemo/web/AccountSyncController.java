@@ -0,0 +1,36 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.account.AccountSync;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Import of existing connected accounts from Stripe:
+ * - POST /accounts/sync[?full=true] : start a sync in the background (202), incremental unless full
+ * - GET /accounts/sync : progress of the current or last run
+ */
+@Controller
+public class AccountSyncController {
+
+    public record SyncRes(boolean started, AccountSync.Progress progress) { }
+
+    @PostMapping(value = "/accounts/sync", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SyncRes> start(Tenant tenant, @RequestParam(value = "full", defaultValue = "false") boolean full) {
+        // A run already in progress is not restarted: its progress is returned instead
+        boolean started = tenant.accountSync().trigger(full);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new SyncRes(started, tenant.accountSync().progress()));
+    }
+
+    @GetMapping(value = "/accounts/sync", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public AccountSync.Progress progress(Tenant tenant) {
+        return tenant.accountSync().progress();
+    }
+}
@@ -0,0 +1,62 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.outbox.PaymentOutbox;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentReq;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous PaymentIntent creation through the tenant's durable outbox:
+ * - POST /payments, POST /payments/platform with a Prefer header listing respond-async (e.g. "Prefer: respond-async,
+ *   wait=10"): 202 + Location, no Stripe call inline
+ * - GET /payments/async/{handle}[?wait=25] : status (pending, succeeded with the intent, failed with an error);
+ *   wait long-polls up to that many seconds for the outcome
+ */
+@Controller
+public class AsyncPaymentController {
+
+    private static final int MAX_WAIT_SECONDS = 25; // below the servlet async timeout (30s by default)
+
+    @RespondAsync
+    @PostMapping(value = "/payments",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PaymentOutbox.Status> createPaymentIntent(Tenant tenant, HttpServletRequest request, @RequestBody PaymentIntentReq req) {
+        return accepted(request, tenant.outbox().submit("destination", req));
+    }
+
+    @RespondAsync
+    @PostMapping(value = "/payments/platform",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PaymentOutbox.Status> createPlatformPayment(Tenant tenant, HttpServletRequest request, @RequestBody PaymentIntentReq req) {
+        return accepted(request, tenant.outbox().submit("platform", req));
+    }
+
+    @GetMapping(value = "/payments/async/{handle}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public CompletableFuture<PaymentOutbox.Status> status(Tenant tenant, @PathVariable("handle") String handle,
+                                                          @RequestParam(value = "wait", defaultValue = "0") int waitSeconds) {
+        Duration wait = Duration.ofSeconds(Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS)));
+        return tenant.outbox().await(handle, wait);
+    }
+
+    private static ResponseEntity<PaymentOutbox.Status> accepted(HttpServletRequest request, PaymentOutbox.Status status) {
+        // A repeat of an already finished order is answered with its outcome right away
+        HttpStatus code = status.pending() ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        URI location = URI.create(TenantPathFilter.basePath(request) + "/payments/async/" + status.handle());
+        return ResponseEntity.status(code).location(location).body(status);
+    }
+}
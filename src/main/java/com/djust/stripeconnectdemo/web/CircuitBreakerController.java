@@ -0,0 +1,24 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.breaker.CircuitBreaker;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * GET /stripe/circuits : circuit of each Stripe operation family used so far (state, recent calls and failures,
+ * seconds before an open circuit lets probes through, calls refused).
+ */
+@Controller
+public class CircuitBreakerController {
+
+    @GetMapping(value = "/stripe/circuits", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public List<CircuitBreaker.Status> circuits(Tenant tenant) {
+        return tenant.breakers().status();
+    }
+}
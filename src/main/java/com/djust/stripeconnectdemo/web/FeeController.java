@@ -0,0 +1,54 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.fee.FeeTable;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fee schedule used when /payments omits application_fee_amount:
+ * - GET /fees : loaded file and number of schedules
+ * - GET /fees/quote?connected_account_id=&currency=&amount= : fee that would be applied (null = none)
+ * - POST /fees/reload : re-read the file now (400 and previous schedule kept when invalid)
+ */
+@Controller
+public class FeeController {
+
+    @GetMapping(value = "/fees", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> status(Tenant tenant) {
+        return tenant.fees().status();
+    }
+
+    @GetMapping(value = "/fees/quote", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> quote(Tenant tenant,
+                                     @RequestParam(value = "connected_account_id", required = false) String connectedAccountId,
+                                     @RequestParam("currency") String currency,
+                                     @RequestParam("amount") long amount) {
+        if (amount <= 0) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing or invalid amount");
+        long fee = tenant.fees().fee(connectedAccountId, currency, amount);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("connected_account_id", connectedAccountId);
+        out.put("currency", currency.toLowerCase(Locale.ROOT));
+        out.put("amount", amount);
+        out.put("application_fee_amount", fee == FeeTable.NO_FEE ? null : fee);
+        return out;
+    }
+
+    @PostMapping(value = "/fees/reload", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> reload(Tenant tenant) {
+        return tenant.fees().reload();
+    }
+}
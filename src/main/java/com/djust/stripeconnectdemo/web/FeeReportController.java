@@ -0,0 +1,180 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.ledger.FeeReconciler;
+import com.djust.stripeconnectdemo.service.ledger.LedgerEntry;
+import com.djust.stripeconnectdemo.service.ledger.LedgerRollups;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Djust earnings from the local ledger (no Stripe call):
+ * - GET /reports/fees?format=csv|ndjson&from=&to=&type=&account=&currency= : every entry, streamed (days are UTC, inclusive)
+ * - GET /reports/fees/summary?by=currency|seller|day : running totals
+ * - POST /reports/fees/reconcile?from=&to= : compare with Stripe (default: previous UTC day); GET returns the last report
+ */
+@Controller
+@RequiredArgsConstructor
+public class FeeReportController {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final String CSV_HEADER = "type,id,charge,account,currency,amount,created\n";
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    private final ObjectMapper mapper;
+
+    @GetMapping("/reports/fees")
+    public ResponseEntity<StreamingResponseBody> export(Tenant tenant,
+                                                        @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                        @RequestParam(value = "from", required = false) String from,
+                                                        @RequestParam(value = "to", required = false) String to,
+                                                        @RequestParam(value = "type", required = false) String type,
+                                                        @RequestParam(value = "account", required = false) String account,
+                                                        @RequestParam(value = "currency", required = false) String currency) {
+        Predicate<LedgerEntry> filter = filter(from, to, type, account, currency);
+        if (format.equals("csv")) {
+            StreamingResponseBody body = out -> {
+                Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER);
+                w.write(CSV_HEADER);
+                tenant.earnings().export(filter, e -> csv(w, e));
+                w.flush();
+            };
+            return ResponseEntity.ok()
+                    .contentType(TEXT_CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"fees-" + tenant.id() + ".csv\"")
+                    .body(body);
+        }
+        if (format.equals("ndjson")) {
+            ObjectWriter rows = mapper.writerFor(LedgerEntry.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            StreamingResponseBody body = out -> {
+                // One generator for the whole export, flushed by its buffer rather than per row
+                JsonGenerator gen = mapper.getFactory().createGenerator(out).setRootValueSeparator(null);
+                tenant.earnings().export(filter, e -> {
+                    rows.writeValue(gen, e);
+                    gen.writeRaw('\n');
+                });
+                gen.flush();
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        }
+        throw new BusinessException(ErrorCode.BAD_REQUEST, "Unknown format '" + format + "' (expected csv or ndjson)");
+    }
+
+    @GetMapping(value = "/reports/fees/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> summary(Tenant tenant,
+                                       @RequestParam(value = "by", defaultValue = "currency") String by,
+                                       @RequestParam(value = "from", required = false) String from,
+                                       @RequestParam(value = "to", required = false) String to,
+                                       @RequestParam(value = "account", required = false) String account) {
+        LedgerRollups rollups = tenant.earnings().rollups();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("by", by);
+        switch (by) {
+            case "currency" -> out.put("totals", rollups.byCurrency());
+            case "seller" -> out.put("totals", account != null ? Map.of(account, rollups.seller(account)) : rollups.bySeller());
+            case "day" -> out.put("totals", rollups.byDay(from == null ? null : day(from, "from").toString(), to == null ? null : day(to, "to").toString()));
+            default -> throw new BusinessException(ErrorCode.BAD_REQUEST, "Unknown grouping '" + by + "' (expected currency, seller or day)");
+        }
+        return out;
+    }
+
+    @GetMapping(value = "/reports/fees/reconcile", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public FeeReconciler.Report lastReconciliation(Tenant tenant) {
+        FeeReconciler.Report last = tenant.reconciler().last();
+        if (last == null) throw new BusinessException(ErrorCode.NOT_FOUND, "No reconciliation has run yet");
+        return last;
+    }
+
+    @PostMapping(value = "/reports/fees/reconcile", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public FeeReconciler.Report reconcile(Tenant tenant,
+                                          @RequestParam(value = "from", required = false) String from,
+                                          @RequestParam(value = "to", required = false) String to) {
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        LocalDate first = from == null ? yesterday : day(from, "from");
+        LocalDate last = to == null ? first : day(to, "to");
+        if (last.isBefore(first)) throw new BusinessException(ErrorCode.BAD_REQUEST, "'to' is before 'from'");
+        return tenant.reconciler().reconcile(startOf(first), startOf(last.plusDays(1)));
+    }
+
+    private static Predicate<LedgerEntry> filter(String from, String to, String type, String account, String currency) {
+        long fromSecond = from == null ? Long.MIN_VALUE : startOf(day(from, "from")).getEpochSecond();
+        long toSecond = to == null ? Long.MAX_VALUE : startOf(day(to, "to").plusDays(1)).getEpochSecond();
+        String cur = currency == null ? null : currency.toLowerCase(Locale.ROOT);
+        return e -> e.created() >= fromSecond && e.created() < toSecond
+                && (type == null || type.equals(e.type()))
+                && (account == null || account.equals(e.account()))
+                && (cur == null || cur.equals(e.currency()));
+    }
+
+    private static LocalDate day(String value, String name) {
+        if (value == null) return null;
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "Invalid '" + name + "' date (expected yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static void csv(Writer w, LedgerEntry e) throws IOException {
+        w.write(e.type());
+        w.write(',');
+        csvField(w, e.id());
+        w.write(',');
+        csvField(w, e.charge());
+        w.write(',');
+        csvField(w, e.account());
+        w.write(',');
+        csvField(w, e.currency());
+        w.write(',');
+        w.write(Long.toString(e.amount()));
+        w.write(',');
+        w.write(Long.toString(e.created()));
+        w.write('\n');
+    }
+
+    private static void csvField(Writer w, String value) throws IOException {
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+    }
+}
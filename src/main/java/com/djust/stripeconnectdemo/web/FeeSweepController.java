@@ -0,0 +1,33 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Djust fee sweep:
+ * - GET /transfers/djust/sweep : accrued fees per currency, pending batches, last transfers
+ * - POST /transfers/djust/sweep : flush everything now (one Transfer per currency)
+ */
+@Controller
+public class FeeSweepController {
+
+    @GetMapping(value = "/transfers/djust/sweep", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> status(Tenant tenant) {
+        return tenant.sweeper().status();
+    }
+
+    @PostMapping(value = "/transfers/djust/sweep", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> flush(Tenant tenant) {
+        List<Map<String, Object>> results = tenant.sweeper().flushNow();
+        return Map.of("sweeps", results);
+    }
+}
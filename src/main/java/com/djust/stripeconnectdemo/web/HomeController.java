@@ -1,60 +1,78 @@
 package com.djust.stripeconnectdemo.web;
 
-import com.djust.stripeconnectdemo.config.StripeConfig;
-import com.djust.stripeconnectdemo.service.MemoryStore;
+import com.djust.stripeconnectdemo.service.account.AccountStatus;
+import com.djust.stripeconnectdemo.service.balance.BalanceReservations;
+import com.djust.stripeconnectdemo.service.balance.BalanceSnapshot;
+import com.djust.stripeconnectdemo.service.payment.OrderIdempotency;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentCache;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentReq;
+import com.djust.stripeconnectdemo.service.state.DashboardState;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
 import com.djust.stripeconnectdemo.error.BusinessException;
 import com.djust.stripeconnectdemo.error.ErrorCode;
-import com.stripe.StripeClient;
+import com.djust.stripeconnectdemo.stripe.CircuitOpenException;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.stripe.model.Account;
-import com.stripe.model.AccountLink;
-import com.stripe.model.PaymentIntent;
+import com.stripe.model.Balance;
 import com.stripe.model.Transfer;
 import com.stripe.param.AccountCreateParams;
-import com.stripe.param.AccountLinkCreateParams;
-import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.TransferCreateParams;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 /**
  * MVC Controller providing:
  * - / : manage accounts (HTML)
- * - /api/state : live state for accounts (JSON)
+ * - /api/state : state for accounts (JSON), from webhook-fed snapshots; missing ones fetched in parallel
+ * - /api/state, /api/balance, /payments/{id} serve last known data marked "stale" while Stripe is unavailable;
+ *   writes fail fast with 503 STRIPE_UNAVAILABLE while their circuit is open (see CircuitBreakerHttpClient)
+ * - /api/state/stream : same state pushed over SSE (see StateStreamController)
  * - POST /accounts : create connected account (controller-only)
- * - POST /accounts/{id}/onboard : create Account Link
+ * - POST /accounts/{id}/onboard : Account Link (reused while unexpired, see AccountLinkService)
  * - POST /payments : create PaymentIntent (OMS-driven flow) with destination + application fee
+ * - GET /payments/{id} : PaymentIntent status, read through PaymentIntentCache
+ * Every endpoint works on the tenant selected by X-Tenant or a /t/{id} prefix (default tenant otherwise).
  */
+@Slf4j
 @Controller
 @RequiredArgsConstructor
 @Validated
 public class HomeController {
 
-    private final StripeClient stripe;
-    private final StripeConfig config;
-    private final MemoryStore store;
+    private final StateJsonWriter stateJson;
+
+    /** Prefix of the pages' own links and API calls: pages served under /t/{id} stay on that tenant. */
+    @ModelAttribute("tenantBase")
+    public String tenantBase(HttpServletRequest request) {
+        return TenantPathFilter.basePath(request);
+    }
 
     @GetMapping("/")
-    public String home(Model model) {
-        model.addAttribute("djustAccountId", store.getDjustAccountId());
+    public String home(Tenant tenant, Model model) {
+        model.addAttribute("djustAccountId", tenant.registry().getDjustAccountId());
         return "index";
     }
 
     @GetMapping("/pay")
-    public String pay(
+    public String pay(Tenant tenant,
             @RequestParam(value = "amount", required = false) Long amount,
             @RequestParam(value = "currency", required = false) String currency,
             @RequestParam(value = "connected_account_id", required = false) String connectedAccountId,
             @RequestParam(value = "application_fee_amount", required = false) Long applicationFeeAmount,
             @RequestParam(value = "order_id", required = false) String orderId,
             Model model) throws Exception {
-        model.addAttribute("publishableKey", config.getPublishableKey());
+        model.addAttribute("publishableKey", tenant.publishableKey());
         model.addAttribute("amount", amount);
         model.addAttribute("currency", currency);
         model.addAttribute("connected_account_id", connectedAccountId);
@@ -64,104 +82,20 @@ public class HomeController {
     }
 
     @GetMapping(value = "/api/state", produces = MediaType.APPLICATION_JSON_VALUE)
-    @ResponseBody
-    public Map<String, Object> state() throws Exception {
-        // Fetch live account status from Stripe for each cached account id
-        var accounts = store.getAccounts().keySet().stream().map(id -> {
-            try {
-                Account a = stripe.accounts().retrieve(id);
-                return Map.of(
-                        "id", a.getId(),
-                        "charges_enabled", Boolean.TRUE.equals(a.getChargesEnabled()),
-                        "payouts_enabled", Boolean.TRUE.equals(a.getPayoutsEnabled()),
-                        "requirements_due", a.getRequirements() != null ? a.getRequirements().getCurrentlyDue() : List.of()
-                );
-            } catch (Exception e) {
-                return Map.of("id", id, "error", e.getMessage());
-            }
-        }).toList();
-
-        String djustId = store.getDjustAccountId();
-        Map<String, Object> djust = null;
-        if (djustId != null && !djustId.isBlank()) {
-            try {
-                Account a = stripe.accounts().retrieve(djustId);
-                djust = Map.of(
-                        "id", a.getId(),
-                        "charges_enabled", Boolean.TRUE.equals(a.getChargesEnabled()),
-                        "payouts_enabled", Boolean.TRUE.equals(a.getPayoutsEnabled())
-                );
-            } catch (Exception e) {
-                djust = Map.of("id", djustId, "error", e.getMessage());
-            }
-        }
-
-        // Also return platform balance summary per currency (available and pending)
-        Map<String, Long> balance = new java.util.LinkedHashMap<>();
-        try {
-            com.stripe.model.Balance b = stripe.balance().retrieve();
-            if (b.getAvailable() != null) {
-                for (Object amtObj : b.getAvailable()) {
-                    if (amtObj == null) continue;
-                    try {
-                        var cls = amtObj.getClass();
-                        var getCurrency = cls.getMethod("getCurrency");
-                        var getAmount = cls.getMethod("getAmount");
-                        Object cur = getCurrency.invoke(amtObj);
-                        Object am = getAmount.invoke(amtObj);
-                        if (cur instanceof String c && am instanceof Number n) {
-                            balance.put(c, n.longValue());
-                        }
-                    } catch (Exception ignored) { }
-                }
-            }
-        } catch (Exception e) {
-            // expose error instead of balance map if retrieval fails
-            balance = null;
-        }
-
-        Map<String, Long> pending = new java.util.LinkedHashMap<>();
-        try {
-            com.stripe.model.Balance b = stripe.balance().retrieve();
-            if (b.getPending() != null) {
-                for (Object amtObj : b.getPending()) {
-                    if (amtObj == null) continue;
-                    try {
-                        var cls = amtObj.getClass();
-                        var getCurrency = cls.getMethod("getCurrency");
-                        var getAmount = cls.getMethod("getAmount");
-                        Object cur = getCurrency.invoke(amtObj);
-                        Object am = getAmount.invoke(amtObj);
-                        if (cur instanceof String c && am instanceof Number n) {
-                            pending.put(c, n.longValue());
-                        }
-                    } catch (Exception ignored) { }
-                }
-            }
-        } catch (Exception e) {
-            pending = null;
-        }
-
-        String rootUrl = config.getRootUrl();
-        if (rootUrl == null) rootUrl = "";
-        java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
-        result.put("accounts", accounts);
-        if (djust != null) result.put("djust", djust);
-        result.put("rootUrl", rootUrl);
-        if (balance != null) result.put("platform_balance", balance);
-        if (pending != null) result.put("platform_balance_pending", pending);
-        return result;
+    public void state(Tenant tenant, HttpServletResponse response) throws IOException {
+        DashboardState state = tenant.state().snapshot();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        stateJson.write(tenant.id(), state, response.getOutputStream());
     }
 
     @GetMapping(value = "/api/balance", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> getPlatformBalance() {
+    public BalanceRes getPlatformBalance(Tenant tenant) throws CircuitOpenException {
         try {
-            com.stripe.model.Balance b = stripe.balance().retrieve();
-            Map<String, Object> out = new java.util.LinkedHashMap<>();
-            out.put("available", b.getAvailable());
-            out.put("pending", b.getPending());
-            return out;
+            BalanceSnapshot b = tenant.balance().getOrStale();
+            return new BalanceRes(b.balance().getAvailable(), b.balance().getPending(), b.stale() ? Boolean.TRUE : null);
+        } catch (CircuitOpenException e) {
+            throw e; // nothing known yet: 503 STRIPE_UNAVAILABLE
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.STRIPE_API_ERROR, "Unable to retrieve platform balance: " + e.getMessage());
         }
@@ -169,7 +103,7 @@ public class HomeController {
 
     @PostMapping(value = "/accounts", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> createAccount() throws Exception {
+    public AccountRes createAccount(Tenant tenant) throws Exception {
         // Controller-only properties, no top-level type
         AccountCreateParams params = AccountCreateParams.builder()
                 .setController(AccountCreateParams.Controller.builder()
@@ -182,19 +116,19 @@ public class HomeController {
                         .setTransfers(AccountCreateParams.Capabilities.Transfers.builder().setRequested(true).build())
                         .build())
                 .build();
-        Account account = stripe.accounts().create(params);
-        store.getAccounts().put(account.getId(), true);
+        Account account = tenant.stripe().accounts().create(params);
+        tenant.registry().register(account.getId());
         // Return only minimal fields to avoid Jackson trying to serialize Stripe internals
-        return Map.of("id", account.getId());
+        return AccountRes.of(account.getId());
     }
 
     @PostMapping(value = "/accounts/djust", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> createDjustExpressAccount(@RequestParam(value = "email", required = false) String email,
+    public AccountRes createDjustExpressAccount(Tenant tenant, @RequestParam(value = "email", required = false) String email,
                                                          @RequestParam(value = "country", required = false) String country) throws Exception {
-        String existing = store.getDjustAccountId();
+        String existing = tenant.registry().getDjustAccountId();
         if (existing != null && !existing.isBlank()) {
-            return Map.of("id", existing, "message", "Djust account already exists");
+            return new AccountRes(existing, null, null, "Djust account already exists");
         }
         AccountCreateParams.Builder builder = AccountCreateParams.builder()
                 .setController(AccountCreateParams.Controller.builder()
@@ -208,31 +142,24 @@ public class HomeController {
                         .build());
         if (country != null && !country.isBlank()) builder.setCountry(country);
         if (email != null && !email.isBlank()) builder.setEmail(email);
-        Account account = stripe.accounts().create(builder.build());
-        store.setDjustAccountId(account.getId());
-        return Map.of("id", account.getId());
+        Account account = tenant.stripe().accounts().create(builder.build());
+        tenant.registry().setDjustAccountId(account.getId());
+        return AccountRes.of(account.getId());
     }
 
     @PostMapping(value = "/accounts/djust/onboard", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> onboardDjust() throws Exception {
-        String djustId = store.getDjustAccountId();
+    public LinkRes onboardDjust(Tenant tenant) throws Exception {
+        String djustId = tenant.registry().getDjustAccountId();
         if (djustId == null || djustId.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Djust account not set");
-        Account account = stripe.accounts().retrieve(djustId);
-        AccountLinkCreateParams linkParams = AccountLinkCreateParams.builder()
-                .setAccount(account.getId())
-                .setRefreshUrl(config.getRootUrl() + "/refresh")
-                .setReturnUrl(config.getRootUrl() + "/return")
-                .setType(AccountLinkCreateParams.Type.ACCOUNT_ONBOARDING)
-                .build();
-        AccountLink link = stripe.accountLinks().create(linkParams);
-        return Map.of("url", link.getUrl());
+        // Known from the registry: no need to retrieve the account before asking for a link
+        return new LinkRes(tenant.links().onboardingUrl(djustId));
     }
 
     @PostMapping(value = "/accounts/djust/request-transfers", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> requestTransfersCapabilityForDjust() throws Exception {
-        String djustId = store.getDjustAccountId();
+    public TransfersCapabilityRes requestTransfersCapabilityForDjust(Tenant tenant) throws Exception {
+        String djustId = tenant.registry().getDjustAccountId();
         if (djustId == null || djustId.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Djust account not set");
 
         // Request 'transfers' capability on existing account
@@ -241,39 +168,28 @@ public class HomeController {
                         .setTransfers(com.stripe.param.AccountUpdateParams.Capabilities.Transfers.builder().setRequested(true).build())
                         .build())
                 .build();
-        Account updated = stripe.accounts().update(djustId, updateParams);
+        Account updated = tenant.stripe().accounts().update(djustId, updateParams);
+        tenant.statusCache().update(updated);
 
         // Optionally provide an onboarding link to complete requirements
-        AccountLinkCreateParams linkParams = AccountLinkCreateParams.builder()
-                .setAccount(updated.getId())
-                .setRefreshUrl(config.getRootUrl() + "/refresh")
-                .setReturnUrl(config.getRootUrl() + "/return")
-                .setType(AccountLinkCreateParams.Type.ACCOUNT_ONBOARDING)
-                .build();
-        AccountLink link = stripe.accountLinks().create(linkParams);
+        String url = tenant.links().onboardingUrl(updated.getId());
 
         String transfersStatus = updated.getCapabilities() != null ? updated.getCapabilities().getTransfers() : null;
-        return Map.of(
-                "account_id", updated.getId(),
-                "transfers_status", transfersStatus,
-                "onboarding_url", link.getUrl()
-        );
+        return new TransfersCapabilityRes(updated.getId(), transfersStatus, url);
     }
 
     @PostMapping(value = "/accounts/djust/verify", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> verifyAndLinkDjust(@RequestParam("id") String id) throws Exception {
+    public AccountRes verifyAndLinkDjust(Tenant tenant, @RequestParam("id") String id) throws Exception {
         if (id == null || id.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing id");
         if (!id.startsWith("acct_")) throw new BusinessException(ErrorCode.BAD_REQUEST, "Invalid account id");
         try {
-            Account account = stripe.accounts().retrieve(id);
-            store.setDjustAccountId(account.getId());
-            return Map.of(
-                    "id", account.getId(),
-                    "charges_enabled", Boolean.TRUE.equals(account.getChargesEnabled()),
-                    "payouts_enabled", Boolean.TRUE.equals(account.getPayoutsEnabled()),
-                    "message", "Compte Djust associé avec succès"
-            );
+            Account account = tenant.stripe().accounts().retrieve(id);
+            tenant.statusCache().update(account);
+            tenant.registry().setDjustAccountId(account.getId());
+            return AccountRes.of(account, "Compte Djust associé avec succès");
+        } catch (CircuitOpenException e) {
+            throw e;
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.NOT_FOUND, "Compte introuvable ou inaccessible: " + e.getMessage());
         }
@@ -281,169 +197,101 @@ public class HomeController {
 
     @PostMapping(value = "/accounts/{id}/onboard", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> onboard(@PathVariable("id") String id) throws Exception {
-        Account account = stripe.accounts().retrieve(id); // Always fetch latest
-        AccountLinkCreateParams linkParams = AccountLinkCreateParams.builder()
-                .setAccount(account.getId())
-                .setRefreshUrl(config.getRootUrl() + "/refresh")
-                .setReturnUrl(config.getRootUrl() + "/return")
-                .setType(AccountLinkCreateParams.Type.ACCOUNT_ONBOARDING)
-                .build();
-        AccountLink link = stripe.accountLinks().create(linkParams);
-        store.getAccounts().put(account.getId(), true);
-        return Map.of("url", link.getUrl());
+    public LinkRes onboard(Tenant tenant, @PathVariable("id") String id) throws Exception {
+        if (!tenant.registry().contains(id)) {
+            // Unknown account: make sure it exists (and is ours) before registering it
+            Account account = tenant.stripe().accounts().retrieve(id);
+            tenant.statusCache().update(account);
+            tenant.registry().register(account.getId());
+        }
+        return new LinkRes(tenant.links().onboardingUrl(id));
     }
 
     @PostMapping(value = "/accounts/{id}/verify", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> verifyExistingAccount(@PathVariable("id") String id) throws Exception {
+    public AccountRes verifyExistingAccount(Tenant tenant, @PathVariable("id") String id) throws Exception {
         try {
             // Verify the account exists and retrieve its details
-            Account account = stripe.accounts().retrieve(id);
+            Account account = tenant.stripe().accounts().retrieve(id);
+            tenant.statusCache().update(account);
             
-            // Add to our local store
-            store.getAccounts().put(account.getId(), true);
+            // Add to the account registry
+            tenant.registry().register(account.getId());
             
-            return Map.of(
-                "id", account.getId(),
-                "charges_enabled", Boolean.TRUE.equals(account.getChargesEnabled()),
-                "payouts_enabled", Boolean.TRUE.equals(account.getPayoutsEnabled()),
-                "message", "Compte vérifié et ajouté avec succès"
-            );
+            return AccountRes.of(account, "Compte vérifié et ajouté avec succès");
+        } catch (CircuitOpenException e) {
+            throw e;
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.NOT_FOUND, "Compte introuvable ou inaccessible: " + e.getMessage());
         }
     }
 
-    public record PaymentIntentReq(Long amount, String currency, String connected_account_id, Integer application_fee_amount, String order_id) {}
-
     public record TransferReq(Long amount, String currency, String destination_account_id, String description) {}
 
-    @PostMapping(value = "/payments", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    @ResponseBody
-    public Map<String, Object> createPaymentIntent(@RequestBody PaymentIntentReq req) throws Exception {
-        // Basic validation
-        if (req.amount == null || req.amount <= 0) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing or invalid amount");
-        if (req.currency == null || req.currency.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing currency");
-        if (req.connected_account_id == null || req.connected_account_id.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing connected_account_id");
-
-        PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
-                .setAmount(req.amount)
-                .setCurrency(req.currency)
-                // Restrict to card to avoid delayed methods (faster availability in test)
-                .addPaymentMethodType("card")
-                .setTransferData(PaymentIntentCreateParams.TransferData.builder()
-                        .setDestination(req.connected_account_id)
-                        .build());
-
-        if (req.application_fee_amount != null && req.application_fee_amount >= 0) {
-            builder.setApplicationFeeAmount(req.application_fee_amount.longValue());
-        }
-        if (req.order_id != null && !req.order_id.isBlank()) {
-            builder.putMetadata("order_id", req.order_id);
+    // Response bodies (typed, serialized without intermediate maps)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record AccountRes(String id, Boolean charges_enabled, Boolean payouts_enabled, String message) {
+        static AccountRes of(String id) { return new AccountRes(id, null, null, null); }
+        static AccountRes of(Account a, String message) {
+            return new AccountRes(a.getId(), Boolean.TRUE.equals(a.getChargesEnabled()), Boolean.TRUE.equals(a.getPayoutsEnabled()), message);
         }
+    }
+    public record LinkRes(String url) {}
+    public record TransfersCapabilityRes(String account_id, String transfers_status, String onboarding_url) {}
+    public record BalanceRes(List<Balance.Available> available, List<Balance.Pending> pending,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) Boolean stale) {}
+    public record PaymentIntentRes(String id, String client_secret, String status) {
+        static PaymentIntentRes of(OrderIdempotency.CreatedIntent pi) { return new PaymentIntentRes(pi.id(), pi.clientSecret(), pi.status()); }
+    }
+    public record PaymentIntentDetailsRes(String id, Long amount, String currency, Long application_fee_amount, String status,
+                                          @JsonInclude(JsonInclude.Include.NON_NULL) Boolean stale) {}
+    public record TransferRes(String id, Long amount, String currency, String destination) {}
 
-        PaymentIntent pi = stripe.paymentIntents().create(builder.build());
-        return Map.of(
-                "id", pi.getId(),
-                "client_secret", pi.getClientSecret(),
-                "status", pi.getStatus()
-        );
+    @PostMapping(value = "/payments", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public PaymentIntentRes createPaymentIntent(Tenant tenant, @RequestBody PaymentIntentReq req) throws Exception {
+        return PaymentIntentRes.of(tenant.payments().createDestination(req));
     }
 
     @PostMapping(value = "/payments/platform", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> createPlatformPayment(@RequestBody PaymentIntentReq req) throws Exception {
+    public PaymentIntentRes createPlatformPayment(Tenant tenant, @RequestBody PaymentIntentReq req) throws Exception {
         // Validate minimal fields only (no connected account)
-        if (req.amount == null || req.amount <= 0) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing or invalid amount");
-        if (req.currency == null || req.currency.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing currency");
-
-        PaymentIntentCreateParams.Builder builder = PaymentIntentCreateParams.builder()
-                .setAmount(req.amount)
-                .setCurrency(req.currency)
-                // Restrict to card to avoid delayed methods (faster availability in test)
-                .addPaymentMethodType("card");
-
-        if (req.order_id != null && !req.order_id.isBlank()) {
-            builder.putMetadata("order_id", req.order_id);
-        }
-
-        PaymentIntent pi = stripe.paymentIntents().create(builder.build());
-        return Map.of(
-                "id", pi.getId(),
-                "client_secret", pi.getClientSecret(),
-                "status", pi.getStatus()
-        );
+        return PaymentIntentRes.of(tenant.payments().createPlatform(req));
     }
 
     @GetMapping(value = "/payments/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> getPaymentIntent(@PathVariable("id") String id) throws Exception {
-        PaymentIntent pi = stripe.paymentIntents().retrieve(id);
-        return Map.of(
-                "id", pi.getId(),
-                "amount", pi.getAmount(),
-                "currency", pi.getCurrency(),
-                "application_fee_amount", pi.getApplicationFeeAmount(),
-                "status", pi.getStatus()
-        );
+    public PaymentIntentDetailsRes getPaymentIntent(Tenant tenant, @PathVariable("id") String id) throws Exception {
+        PaymentIntentCache.Snapshot pi = tenant.intents().get(id);
+        return new PaymentIntentDetailsRes(pi.id(), pi.amount(), pi.currency(), pi.application_fee_amount(), pi.status(),
+                pi.stale() ? Boolean.TRUE : null);
     }
 
     @PostMapping(value = "/transfers/djust", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> transferFeesToDjust(@RequestBody TransferReq req) throws Exception {
+    public TransferRes transferFeesToDjust(Tenant tenant, @RequestBody TransferReq req) throws Exception {
         if (req.amount == null || req.amount <= 0) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing or invalid amount");
         if (req.currency == null || req.currency.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing currency");
-        String djustId = store.getDjustAccountId();
+        String djustId = tenant.registry().getDjustAccountId();
         if (djustId == null || djustId.isBlank()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Djust account not set");
 
-        // Ensure destination account can receive transfers
-        try {
-            Account dj = stripe.accounts().retrieve(djustId);
-            var cap = dj.getCapabilities();
-            boolean transfersOk = cap != null && ("active".equalsIgnoreCase(cap.getTransfers()));
-            if (!transfersOk) {
-                throw new BusinessException(
-                        ErrorCode.ONBOARDING_REQUIRED,
-                        "Djust account cannot receive transfers yet (capability 'transfers' not active). Onboard and complete requirements.");
+        // Ensure destination account can receive transfers (webhook-fed snapshot, live read if missing/stale)
+        AccountStatus dj = tenant.statusCache().getFresh(djustId);
+        if (dj == null || !dj.transfersActive()) {
+            // a negative snapshot is re-checked live: onboarding may have just completed
+            try {
+                dj = tenant.statusCache().update(tenant.stripe().accounts().retrieve(djustId));
+            } catch (CircuitOpenException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new BusinessException(ErrorCode.STRIPE_API_ERROR, "Unable to check Djust account capabilities: " + e.getMessage());
             }
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCode.STRIPE_API_ERROR, "Unable to check Djust account capabilities: " + e.getMessage());
         }
-
-        // Check platform available balance in the requested currency to avoid balance_insufficient
-        try {
-            com.stripe.model.Balance balance = stripe.balance().retrieve();
-            long available = 0L;
-            if (balance.getAvailable() != null) {
-                for (Object amtObj : balance.getAvailable()) {
-                    if (amtObj == null) continue;
-                    try {
-                        var cls = amtObj.getClass();
-                        var getCurrency = cls.getMethod("getCurrency");
-                        var getAmount = cls.getMethod("getAmount");
-                        Object cur = getCurrency.invoke(amtObj);
-                        Object am = getAmount.invoke(amtObj);
-                        if (cur instanceof String c && am instanceof Number n && req.currency.equalsIgnoreCase(c)) {
-                            available = n.longValue();
-                            break;
-                        }
-                    } catch (Exception ignored) { }
-                }
-            }
-            if (available < req.amount) {
-                throw new BusinessException(
-                        ErrorCode.INSUFFICIENT_FUNDS,
-                        "Insufficient platform balance in " + req.currency + " (available=" + available + ", requested=" + req.amount + ").",
-                        java.util.Map.of(
-                                "available_by_currency", java.util.Map.of(req.currency.toLowerCase(), available),
-                                "requested", req.amount,
-                                "currency", req.currency
-                        )
-                );
-            }
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCode.STRIPE_API_ERROR, "Unable to retrieve platform balance: " + e.getMessage());
+        if (!dj.transfersActive()) {
+            throw new BusinessException(
+                    ErrorCode.ONBOARDING_REQUIRED,
+                    "Djust account cannot receive transfers yet (capability 'transfers' not active). Onboard and complete requirements.");
         }
 
         TransferCreateParams.Builder builder = TransferCreateParams.builder()
@@ -452,17 +300,58 @@ public class HomeController {
                 .setDestination(djustId);
         if (req.description != null && !req.description.isBlank()) builder.setDescription(req.description);
 
-        Transfer transfer = stripe.transfers().create(builder.build());
-        return Map.of(
-                "id", transfer.getId(),
-                "amount", transfer.getAmount(),
-                "currency", transfer.getCurrency(),
-                "destination", transfer.getDestination()
-        );
+        // Reserve the amount against the platform available balance: concurrent transfers cannot over-commit it (no balance_insufficient)
+        BalanceReservations.Reservation reservation;
+        try {
+            reservation = tenant.reservations().tryReserve(req.currency, req.amount);
+        } catch (CircuitOpenException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.STRIPE_API_ERROR, "Unable to retrieve platform balance: " + e.getMessage());
+        }
+        if (reservation == null) {
+            long available = tenant.reservations().available(req.currency);
+            throw new BusinessException(
+                    ErrorCode.INSUFFICIENT_FUNDS,
+                    "Insufficient platform balance in " + req.currency + " (available=" + available + ", requested=" + req.amount + ").",
+                    java.util.Map.of(
+                            "available_by_currency", java.util.Map.of(req.currency.toLowerCase(Locale.ROOT), available),
+                            "requested", req.amount,
+                            "currency", req.currency
+                    )
+            );
+        }
+
+        Transfer transfer;
+        try {
+            transfer = tenant.stripe().transfers().create(builder.build());
+        } catch (Exception e) {
+            reservation.failed(e);
+            throw e;
+        }
+        reservation.commit();
+        tenant.balance().invalidate();
+        try {
+            tenant.earnings().recordTransfer(transfer.getId(), djustId, transfer.getCurrency(), transfer.getAmount(), transfer.getCreated());
+        } catch (RuntimeException e) {
+            // The transfer went through; the transfer.created webhook records it later
+            log.warn("Unable to record transfer {} in the earnings ledger: {}", transfer.getId(), e.getMessage());
+        }
+        return new TransferRes(transfer.getId(), transfer.getAmount(), transfer.getCurrency(), transfer.getDestination());
+    }
+
+    // Simple pages; Stripe sends the seller to /return or /refresh once an Account Link was used or expired, so it is not handed out again
+    @GetMapping("/return")
+    public String ret(Tenant tenant, @RequestParam(value = "account", required = false) String account) {
+        if (account != null) tenant.links().invalidate(account);
+        return "return";
+    }
+
+    @GetMapping("/refresh")
+    public String refresh(Tenant tenant, @RequestParam(value = "account", required = false) String account) {
+        if (account != null) tenant.links().invalidate(account);
+        return "refresh";
     }
 
-    // Simple pages
-    @GetMapping("/return") public String ret() { return "return"; }
-    @GetMapping("/refresh") public String refresh() { return "refresh"; }
     @GetMapping("/success") public String success() { return "success"; }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.payment.PaymentBatchService;
+import com.djust.stripeconnectdemo.service.payment.PaymentIntentReq;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * POST /payments/batch : bulk PaymentIntent creation for OMS imports.
+ * - input: JSON array or NDJSON stream of PaymentIntentReq (destination charges)
+ * - the whole batch is validated before any Stripe call (400 VALIDATION_ERROR with per-index errors)
+ * - output: NDJSON, one line per item in completion order, then a summary line (done: false and the number of
+ *   items reported when the batch was interrupted); a client that disconnects stops the remaining creations
+ * - the response outlives the servlet async timeout (30s by default): its own timeout is sized from the batch
+ */
+@Controller
+@RequiredArgsConstructor
+public class PaymentBatchController {
+
+    private final ObjectMapper mapper;
+
+    @PostMapping(value = "/payments/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> createBatch(Tenant tenant, HttpServletRequest request) throws IOException {
+        PaymentBatchService batches = tenant.batches();
+        List<PaymentIntentReq> items = read(request, batches.maxItems());
+        if (items.isEmpty()) throw new BusinessException(ErrorCode.BAD_REQUEST, "Empty batch");
+
+        Map<Integer, String> errors = batches.validate(items);
+        if (!errors.isEmpty()) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "Batch validation failed, nothing was created",
+                    Map.of("errors", errors));
+        }
+
+        // Read by the StreamingResponseBody handler when it starts async processing
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(batches.timeout(items.size()).toMillis());
+
+        StreamingResponseBody body = out -> {
+            int[] reported = {0};
+            int[] failed = {0};
+            boolean done = false;
+            try {
+                // writeLine throws once the client is gone, which stops the batch
+                batches.create(items, result -> {
+                    writeLine(out, result);
+                    reported[0]++;
+                    if (result.error() != null) failed[0]++;
+                });
+                done = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writeLine(out, new BatchDone(done, items.size(), reported[0], failed[0]));
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private List<PaymentIntentReq> read(HttpServletRequest request, int maxItems) throws IOException {
+        // A root-level JSON array is iterated element by element, NDJSON value by value
+        List<PaymentIntentReq> items = new ArrayList<>();
+        try (MappingIterator<PaymentIntentReq> it = mapper.readerFor(PaymentIntentReq.class).readValues(request.getInputStream())) {
+            while (it.hasNextValue()) {
+                if (items.size() == maxItems) {
+                    throw new BusinessException(ErrorCode.BAD_REQUEST, "Batch too large (max " + maxItems + " items)");
+                }
+                items.add(it.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "Malformed batch at item " + items.size() + ": " + e.getOriginalMessage());
+        }
+        return items;
+    }
+
+    /** Last NDJSON line of a batch; reported < total when it was interrupted. */
+    public record BatchDone(boolean done, int total, int reported, int failed) { }
+
+    private void writeLine(OutputStream out, Object line) {
+        try {
+            out.write(mapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.djust.stripeconnectdemo.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a handler method to requests whose Prefer header carries the respond-async preference (RFC 7240),
+ * e.g. "Prefer: respond-async, wait=10". Such a handler wins over a plain one on the same path.
+ * Matched by {@link RespondAsyncCondition}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RespondAsync {
+}
@@ -0,0 +1,55 @@
+package com.djust.stripeconnectdemo.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+
+import java.util.Enumeration;
+
+/**
+ * Request condition of {@link RespondAsync} handlers: matches when any Prefer header lists the respond-async token.
+ * Prefer is a comma-separated list of preferences, each a token optionally followed by "=value" and ";" parameters;
+ * tokens are case-insensitive.
+ */
+public final class RespondAsyncCondition implements RequestCondition<RespondAsyncCondition> {
+
+    public static final RespondAsyncCondition INSTANCE = new RespondAsyncCondition();
+
+    private static final String PREFER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    private RespondAsyncCondition() { }
+
+    @Override
+    public RespondAsyncCondition combine(RespondAsyncCondition other) {
+        return this;
+    }
+
+    @Override
+    public RespondAsyncCondition getMatchingCondition(HttpServletRequest request) {
+        if (CorsUtils.isPreFlightRequest(request)) return this;
+        return requested(request) ? this : null;
+    }
+
+    @Override
+    public int compareTo(RespondAsyncCondition other, HttpServletRequest request) {
+        return 0;
+    }
+
+    /** True when the request prefers an asynchronous response. */
+    public static boolean requested(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(PREFER);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String preference : headers.nextElement().split(",")) {
+                String token = preference.split("[=;]", 2)[0].strip();
+                if (token.equalsIgnoreCase(RESPOND_ASYNC)) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + PREFER + ": " + RESPOND_ASYNC + "]";
+    }
+}
@@ -0,0 +1,152 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.state.DashboardState;
+import com.djust.stripeconnectdemo.service.state.StateDiff;
+import com.djust.stripeconnectdemo.service.state.StateService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One shared dashboard state (of one tenant) pushed to every SSE subscriber.
+ * - state is refreshed once per interval (only while someone is subscribed), whatever the number of tabs
+ * - a new subscriber gets the current state as a "snapshot" event, then only "diff" events
+ * - webhooks call requestRefresh() so account changes show up without waiting for the next tick
+ * - each event is serialized once and the same bytes are written to every subscriber
+ */
+@Slf4j
+public class StateBroadcaster implements AutoCloseable {
+
+    private final String tenant;
+    private final StateService stateService;
+    private final StateJsonWriter stateJson;
+    private final ObjectMapper mapper;
+    private final Duration emitterTimeout;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    // Written only from the scheduler thread
+    private volatile DashboardState current;
+    private volatile byte[] currentJson;
+
+    public StateBroadcaster(String tenant, StateService stateService, StateJsonWriter stateJson, ObjectMapper mapper, Duration emitterTimeout) {
+        this.tenant = tenant;
+        this.stateService = stateService;
+        this.stateJson = stateJson;
+        this.mapper = mapper;
+        this.emitterTimeout = emitterTimeout;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("state-stream-" + tenant).daemon().factory());
+    }
+
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(this::tick, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        // Joins the broadcast list on the scheduler thread, the only one that sends, so no diff can precede its snapshot
+        scheduler.execute(() -> {
+            if (current == null) {
+                emitters.add(emitter);
+                refresh(); // first state: broadcast as a snapshot
+            } else if (send(emitter, snapshotEvent(currentJson))) {
+                emitters.add(emitter);
+            }
+        });
+        return emitter;
+    }
+
+    /** Schedules an immediate refresh (coalesced with any already queued). */
+    public void requestRefresh() {
+        if (emitters.isEmpty() || !refreshQueued.compareAndSet(false, true)) return;
+        scheduler.execute(() -> {
+            refreshQueued.set(false);
+            refresh();
+        });
+    }
+
+    public int subscribers() {
+        return emitters.size();
+    }
+
+    private void tick() {
+        if (emitters.isEmpty()) {
+            // Nobody listening: drop the state so the next subscriber does not start from a stale one
+            current = null;
+            currentJson = null;
+            return;
+        }
+        refresh();
+    }
+
+    private void refresh() {
+        DashboardState next;
+        byte[] nextJson;
+        try {
+            next = stateService.snapshot();
+            nextJson = stateJson.toBytes(tenant, next);
+        } catch (RuntimeException e) {
+            log.warn("State refresh failed: {}", e.getMessage());
+            return;
+        }
+        DashboardState prev = current;
+        current = next;
+        currentJson = nextJson;
+        if (prev == null) {
+            broadcast(snapshotEvent(nextJson));
+            return;
+        }
+        Map<String, Object> diff = StateDiff.diff(prev, next);
+        if (diff.isEmpty()) {
+            // Keep-alive comment when nothing changed, so proxies do not close idle streams
+            broadcast(SseEmitter.event().comment("ping"));
+            return;
+        }
+        try {
+            broadcast(SseEmitter.event().name("diff").data(mapper.writeValueAsString(diff), MediaType.APPLICATION_JSON));
+        } catch (JsonProcessingException e) {
+            log.warn("State diff serialization failed: {}", e.getMessage());
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder snapshotEvent(byte[] json) {
+        return SseEmitter.event().name("snapshot").data(json, MediaType.APPLICATION_JSON);
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : emitters) send(emitter, event);
+    }
+
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (SseEmitter emitter : emitters) emitter.complete();
+        emitters.clear();
+    }
+}
@@ -0,0 +1,48 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One StateBroadcaster per tenant, created and started on its first subscriber.
+ * Tenants nobody watches cost nothing beyond an idle scheduler thread.
+ */
+public class StateBroadcasters implements AutoCloseable {
+
+    private final StateJsonWriter stateJson;
+    private final ObjectMapper mapper;
+    private final Duration interval;
+    private final Duration emitterTimeout;
+    private final Map<String, StateBroadcaster> broadcasters = new ConcurrentHashMap<>();
+
+    public StateBroadcasters(StateJsonWriter stateJson, ObjectMapper mapper, Duration interval, Duration emitterTimeout) {
+        this.stateJson = stateJson;
+        this.mapper = mapper;
+        this.interval = interval;
+        this.emitterTimeout = emitterTimeout;
+    }
+
+    public StateBroadcaster of(Tenant tenant) {
+        return broadcasters.computeIfAbsent(tenant.id(), id -> {
+            StateBroadcaster broadcaster = new StateBroadcaster(id, tenant.state(), stateJson, mapper, emitterTimeout);
+            broadcaster.start(interval);
+            return broadcaster;
+        });
+    }
+
+    /** Refresh request from a webhook; a tenant without a broadcaster has no subscriber to notify. */
+    public void requestRefresh(Tenant tenant) {
+        StateBroadcaster broadcaster = broadcasters.get(tenant.id());
+        if (broadcaster != null) broadcaster.requestRefresh();
+    }
+
+    @Override
+    public void close() {
+        broadcasters.values().forEach(StateBroadcaster::close);
+        broadcasters.clear();
+    }
+}
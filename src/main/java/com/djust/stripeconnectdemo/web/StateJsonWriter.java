@@ -0,0 +1,123 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.balance.CurrencyAmounts;
+import com.djust.stripeconnectdemo.service.state.AccountView;
+import com.djust.stripeconnectdemo.service.state.DashboardState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a DashboardState as JSON straight to an output stream, reusing bytes that did not change between polls.
+ * - each account's JSON is cached by id and reused while its AccountView is equal
+ * - balance JSON is reused while BalanceService serves the same snapshot (same CurrencyAmounts instance)
+ * - caches are kept per tenant, so two platforms never share (or evict) each other's bytes
+ * Output is byte-for-byte what Jackson would produce for the record.
+ */
+@Component
+public class StateJsonWriter {
+
+    private static final byte[] ACCOUNTS_OPEN = "{\"accounts\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DJUST = ",\"djust\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ROOT_URL = ",\"rootUrl\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BALANCE = ",\"platform_balance\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PENDING = ",\"platform_balance_pending\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STALE = ",\"stale\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+
+    private record Cached<T>(T source, byte[] json) { }
+
+    private static final class Caches {
+        final Map<String, Cached<AccountView>> accounts = new ConcurrentHashMap<>();
+        volatile Cached<CurrencyAmounts> balance;
+        volatile Cached<CurrencyAmounts> pending;
+        volatile Cached<String> rootUrl;
+    }
+
+    private final ObjectMapper mapper;
+    private final Map<String, Caches> tenants = new ConcurrentHashMap<>();
+
+    public StateJsonWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public void write(String tenant, DashboardState state, OutputStream out) throws IOException {
+        Caches c = tenants.computeIfAbsent(tenant, t -> new Caches());
+        List<AccountView> views = state.accounts();
+        out.write(ACCOUNTS_OPEN);
+        for (int i = 0; i < views.size(); i++) {
+            if (i > 0) out.write(',');
+            out.write(account(c, views.get(i)));
+        }
+        out.write(']');
+        if (state.djust() != null) {
+            out.write(DJUST);
+            out.write(mapper.writeValueAsBytes(state.djust()));
+        }
+        out.write(ROOT_URL);
+        Cached<String> url = c.rootUrl;
+        if (url == null || !url.source().equals(state.rootUrl())) {
+            url = new Cached<>(state.rootUrl(), mapper.writeValueAsBytes(state.rootUrl()));
+            c.rootUrl = url;
+        }
+        out.write(url.json());
+        if (state.platform_balance() != null) {
+            out.write(BALANCE);
+            out.write((c.balance = amounts(c.balance, state.platform_balance())).json());
+        }
+        if (state.platform_balance_pending() != null) {
+            out.write(PENDING);
+            out.write((c.pending = amounts(c.pending, state.platform_balance_pending())).json());
+        }
+        if (state.stale() != null) {
+            out.write(STALE);
+            out.write(state.stale() ? TRUE : FALSE);
+        }
+        out.write('}');
+        prune(c, views);
+    }
+
+    /** Whole document as bytes, e.g. to send one SSE snapshot to many subscribers. */
+    public byte[] toBytes(String tenant, DashboardState state) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + state.accounts().size() * 160);
+        try {
+            write(tenant, state, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] account(Caches c, AccountView view) throws IOException {
+        Cached<AccountView> cached = c.accounts.get(view.id());
+        if (cached != null && cached.source().equals(view)) return cached.json();
+        byte[] json = mapper.writeValueAsBytes(view);
+        c.accounts.put(view.id(), new Cached<>(view, json));
+        return json;
+    }
+
+    private Cached<CurrencyAmounts> amounts(Cached<CurrencyAmounts> cached, CurrencyAmounts amounts) throws IOException {
+        if (cached != null && cached.source() == amounts) return cached;
+        return new Cached<>(amounts, mapper.writeValueAsBytes(amounts));
+    }
+
+    /** Drops cached accounts no longer listed, once they clearly outnumber the live ones. */
+    private static void prune(Caches c, List<AccountView> views) {
+        if (c.accounts.size() <= views.size() + 64) return;
+        Set<String> live = new HashSet<>(views.size() * 2);
+        for (AccountView v : views) live.add(v.id());
+        c.accounts.keySet().retainAll(live);
+    }
+}
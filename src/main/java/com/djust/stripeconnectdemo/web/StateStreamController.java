@@ -0,0 +1,28 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * GET /api/state/stream : dashboard state over Server-Sent Events.
+ * - event "snapshot": full state (same shape as GET /api/state)
+ * - event "diff": changes since the previous event (see StateDiff)
+ * Subscribers of the same tenant share one broadcaster.
+ */
+@Controller
+@RequiredArgsConstructor
+public class StateStreamController {
+
+    private final StateBroadcasters broadcasters;
+
+    @GetMapping(value = "/api/state/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream(Tenant tenant) {
+        return broadcasters.of(tenant).subscribe();
+    }
+}
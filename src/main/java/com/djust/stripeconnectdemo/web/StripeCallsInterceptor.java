@@ -0,0 +1,67 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.stripe.StripeCallContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how many Stripe calls each inbound request made:
+ * app.requests.stripe.calls{uri="/api/state"} (count, sum, max, histogram).
+ * - async requests (StreamingResponseBody, SseEmitter, DeferredResult) keep one counter, stored as a request
+ *   attribute, across their dispatches; it is recorded once, when the last dispatch completes
+ * - also registered as a Callable interceptor, so StreamingResponseBody work counts against its request
+ */
+@RequiredArgsConstructor
+public class StripeCallsInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+
+    private static final String CALLS_ATTRIBUTE = StripeCallsInterceptor.class.getName() + ".calls";
+
+    private final MeterRegistry registry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AtomicInteger calls = (AtomicInteger) request.getAttribute(CALLS_ATTRIBUTE);
+        request.setAttribute(CALLS_ATTRIBUTE, StripeCallContext.begin(calls));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Recorded by the async dispatch; don't leave the counter on this pooled thread
+        StripeCallContext.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int calls = StripeCallContext.end();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("app.requests.stripe.calls")
+                .description("Upstream Stripe calls per inbound request")
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(calls);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        AtomicInteger calls = (AtomicInteger) request.getAttribute(CALLS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (calls != null) StripeCallContext.begin(calls);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        StripeCallContext.end();
+    }
+}
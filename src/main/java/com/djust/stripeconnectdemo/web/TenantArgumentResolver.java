@@ -0,0 +1,42 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import com.djust.stripeconnectdemo.service.tenant.TenantRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves a {@link Tenant} controller parameter:
+ * /t/{id} path prefix (see TenantPathFilter), else the X-Tenant header, else the default tenant.
+ * An unknown id is a 404 NOT_FOUND.
+ */
+@RequiredArgsConstructor
+public class TenantArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public static final String HEADER = "X-Tenant";
+
+    private final TenantRegistry tenants;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return Tenant.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Tenant resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return tenants.get(tenantId(webRequest.getNativeRequest(HttpServletRequest.class)));
+    }
+
+    /** Tenant id selected by the request, null for the default tenant. */
+    public static String tenantId(HttpServletRequest request) {
+        Object fromPath = request.getAttribute(TenantPathFilter.TENANT_ATTRIBUTE);
+        if (fromPath != null) return fromPath.toString();
+        return request.getHeader(HEADER);
+    }
+}
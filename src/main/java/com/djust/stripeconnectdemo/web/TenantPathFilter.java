@@ -0,0 +1,84 @@
+package com.djust.stripeconnectdemo.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Path-based tenant selection: /t/{tenant}/api/state is served as /api/state for that tenant.
+ * The prefix is stripped before MVC mapping (so every endpoint, page and webhook works under it)
+ * and the tenant id is left in a request attribute for {@link TenantArgumentResolver}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantPathFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_ATTRIBUTE = TenantPathFilter.class.getName() + ".tenant";
+    private static final String PREFIX = "/t/";
+
+    /** "/t/{id}" when the request came in under a tenant prefix, else "" (for links and Location headers). */
+    public static String basePath(HttpServletRequest request) {
+        Object tenant = request.getAttribute(TENANT_ATTRIBUTE);
+        return tenant == null ? "" : PREFIX + tenant;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String contextPath = request.getContextPath();
+        String path = request.getRequestURI().substring(contextPath.length());
+        if (!path.startsWith(PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        int end = path.indexOf('/', PREFIX.length());
+        String tenant = end < 0 ? path.substring(PREFIX.length()) : path.substring(PREFIX.length(), end);
+        String rest = end < 0 ? "/" : path.substring(end);
+        if (tenant.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        request.setAttribute(TENANT_ATTRIBUTE, tenant);
+        chain.doFilter(new StrippedRequest(request, contextPath + rest, rest), response);
+    }
+
+    private static final class StrippedRequest extends HttpServletRequestWrapper {
+        private final String requestUri;
+        private final String servletPath;
+
+        StrippedRequest(HttpServletRequest request, String requestUri, String servletPath) {
+            super(request);
+            this.requestUri = requestUri;
+            this.servletPath = servletPath;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return requestUri;
+        }
+
+        @Override
+        public String getServletPath() {
+            return servletPath;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = new StringBuffer();
+            url.append(getScheme()).append("://").append(getServerName());
+            int port = getServerPort();
+            if (!("http".equals(getScheme()) && port == 80) && !("https".equals(getScheme()) && port == 443)) {
+                url.append(':').append(port);
+            }
+            return url.append(requestUri);
+        }
+    }
+}
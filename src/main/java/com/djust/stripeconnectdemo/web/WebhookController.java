@@ -0,0 +1,113 @@
+package com.djust.stripeconnectdemo.web;
+
+import com.djust.stripeconnectdemo.error.BusinessException;
+import com.djust.stripeconnectdemo.error.ErrorCode;
+import com.djust.stripeconnectdemo.service.account.AccountStatusCache;
+import com.djust.stripeconnectdemo.service.tenant.Tenant;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Account;
+import com.stripe.model.Capability;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.model.Transfer;
+import com.stripe.net.Webhook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+
+/**
+ * Stripe webhook endpoint (signature-verified).
+ * - account.updated / capability.updated: refresh local account status snapshots
+ * - account.application.deauthorized: forget the account
+ * - payment_intent.succeeded: accrue the application fee for the next Djust sweep and record it in the earnings ledger
+ * - payment_intent.canceled: final status for GET /payments/{id} (succeeded too)
+ * - transfer.created: record transfers to the Djust account in the earnings ledger
+ * Account changes are pushed right away to dashboard SSE subscribers.
+ * Each platform registers its own endpoint: /webhooks/stripe (default tenant), /t/{id}/webhooks/stripe.
+ */
+@Controller
+@RequiredArgsConstructor
+public class WebhookController {
+
+    private final StateBroadcasters stateBroadcasters;
+
+    @PostMapping(value = "/webhooks/stripe", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public WebhookAck handle(Tenant tenant, @RequestBody String payload,
+                                      @RequestHeader(value = "Stripe-Signature", required = false) String signature) {
+        String secret = tenant.webhookSecret();
+        if (!StringUtils.hasText(secret)) {
+            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "Missing webhook secret of tenant '" + tenant.id() + "'");
+        }
+        if (signature == null) throw new BusinessException(ErrorCode.BAD_REQUEST, "Missing Stripe-Signature header");
+
+        Event event;
+        try {
+            event = Webhook.constructEvent(payload, signature, secret);
+        } catch (SignatureVerificationException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "Invalid webhook signature");
+        }
+
+        AccountStatusCache statusCache = tenant.statusCache();
+        long created = event.getCreated() != null ? event.getCreated() : 0L;
+        switch (event.getType()) {
+            case "account.updated" -> {
+                if (dataObject(event) instanceof Account a) statusCache.update(a, created);
+            }
+            case "capability.updated" -> {
+                if (dataObject(event) instanceof Capability c) statusCache.updateCapability(c.getAccount(), c.getId(), c.getStatus(), created);
+            }
+            case "account.application.deauthorized" -> {
+                if (event.getAccount() != null) {
+                    tenant.registry().remove(event.getAccount());
+                    statusCache.evict(event.getAccount());
+                }
+            }
+            case "payment_intent.succeeded" -> {
+                if (dataObject(event) instanceof PaymentIntent pi) tenant.intents().remember(pi);
+                // Destination charges only: that is where application_fee_amount lands on the platform
+                if (dataObject(event) instanceof PaymentIntent pi && pi.getApplicationFeeAmount() != null && pi.getTransferData() != null) {
+                    tenant.feeLedger().accrue(pi.getId(), pi.getCurrency(), pi.getApplicationFeeAmount());
+                    tenant.earnings().recordFee(pi.getId(), pi.getLatestCharge(), pi.getTransferData().getDestination(),
+                            pi.getCurrency(), pi.getApplicationFeeAmount(), created);
+                }
+            }
+            case "payment_intent.canceled" -> {
+                if (dataObject(event) instanceof PaymentIntent pi) tenant.intents().remember(pi);
+            }
+            case "transfer.created" -> {
+                if (dataObject(event) instanceof Transfer t && t.getDestination() != null
+                        && t.getDestination().equals(tenant.registry().getDjustAccountId())) {
+                    tenant.earnings().recordTransfer(t.getId(), t.getDestination(), t.getCurrency(), t.getAmount(), t.getCreated());
+                }
+            }
+            default -> { } // not subscribed to, acknowledge anyway
+        }
+        if (event.getType().startsWith("account.") || event.getType().startsWith("capability.")) {
+            stateBroadcasters.requestRefresh(tenant);
+        }
+        return new WebhookAck(true, event.getType());
+    }
+
+    public record WebhookAck(boolean received, String type) { }
+
+    private static StripeObject dataObject(Event event) {
+        var deserializer = event.getDataObjectDeserializer();
+        // Events rendered with another API version than the SDK's cannot be read safely; fall back to best effort
+        return deserializer.getObject().orElseGet(() -> {
+            try {
+                return deserializer.deserializeUnsafe();
+            } catch (EventDataObjectDeserializationException e) {
+                return null;
+            }
+        });
+    }
+}